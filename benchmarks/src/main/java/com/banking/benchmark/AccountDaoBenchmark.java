@@ -0,0 +1,48 @@
+package com.banking.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.model.Account;
+import com.banking.model.Transaction;
+
+// Row mappers and lookups in AccountDao / TransactionDao
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AccountDaoBenchmark {
+
+	@Benchmark
+	public Account getAccountById(BankDatabaseState state) {
+		return state.database.getAccountDao()
+				.getAccountById(state.randomAccountId());
+	}
+
+	@Benchmark
+	public Account getAccountByIdCached(BankDatabaseState state) {
+		return state.database.getCachingAccountDao()
+				.getAccountById(state.randomAccountId());
+	}
+
+	@Benchmark
+	public List<Account> getAccountsByCustomer(BankDatabaseState state) {
+		return state.database.getAccountDao()
+				.getAccountsWithCustomerByCustomerId(state.randomAccountId());
+	}
+
+	@Benchmark
+	public List<Transaction> getLatestTransactions(BankDatabaseState state) {
+		return state.database.getTransactionDao()
+				.getLatestTransactions(state.randomAccountId(), 21);
+	}
+}
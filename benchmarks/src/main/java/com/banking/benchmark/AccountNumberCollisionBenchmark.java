@@ -0,0 +1,128 @@
+package com.banking.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.service.AccountNumberAllocator;
+
+// Several allocators on one sequence, as on several app nodes, with threads
+// spread over them and a small block so refills race. Every number handed
+// out is marked in a bitmap; at the end of the trial the run fails if any
+// number came out twice or has a bad check digit. A normal run allocates
+// tens of millions of numbers.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class AccountNumberCollisionBenchmark {
+
+	private static final int PAGE_BITS = 20;
+
+	@Param("4")
+	public int nodes;
+
+	@Param("100")
+	public int blockSize;
+
+	private BenchmarkDatabase database;
+	private AccountNumberAllocator[] allocators;
+	private final AtomicInteger nextNode = new AtomicInteger();
+
+	// seen sequence values, one bit each, in pages of 2^PAGE_BITS values
+	private final ConcurrentHashMap<Long, AtomicLongArray> seen = new ConcurrentHashMap<>();
+	private final AtomicLong allocated = new AtomicLong();
+	private final AtomicLong collisions = new AtomicLong();
+	private final AtomicLong invalid = new AtomicLong();
+
+	@State(Scope.Thread)
+	public static class Node {
+
+		private AccountNumberAllocator allocator;
+
+		@Setup(Level.Trial)
+		public void setUp(AccountNumberCollisionBenchmark benchmark) {
+			allocator = benchmark.allocators[benchmark.nextNode.getAndIncrement() % benchmark.nodes];
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		database = new BenchmarkDatabase(1, 0, 1_000);
+		allocators = new AccountNumberAllocator[nodes];
+		for (int i = 0; i < nodes; i++) {
+			allocators[i] = database.newAccountNumberAllocator(blockSize);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		try {
+			long blocks = 0;
+			for (AccountNumberAllocator allocator : allocators) {
+				blocks += allocator.getBlocksReserved();
+			}
+			System.out.println();
+			System.out.println("allocated=" + allocated.get() + " blocks=" + blocks + " collisions=" + collisions.get()
+					+ " invalid=" + invalid.get());
+			if (collisions.get() != 0 || invalid.get() != 0) {
+				throw new IllegalStateException(
+						collisions.get() + " duplicate and " + invalid.get() + " invalid account numbers");
+			}
+		} finally {
+			database.close();
+		}
+	}
+
+	@Benchmark
+	public String allocate(Node node) {
+		String accountNumber = node.allocator.allocate();
+		allocated.incrementAndGet();
+		if (!AccountNumberAllocator.isValid(accountNumber)) {
+			invalid.incrementAndGet();
+		}
+		// ACC + sequence value + check digit
+		long value = Long.parseLong(accountNumber.substring(3, accountNumber.length() - 1));
+		if (!mark(value)) {
+			collisions.incrementAndGet();
+		}
+		return accountNumber;
+	}
+
+	// false if the value was already marked
+	private boolean mark(long value) {
+		AtomicLongArray page = seen.computeIfAbsent(value >>> PAGE_BITS,
+				key -> new AtomicLongArray(1 << (PAGE_BITS - 6)));
+		int bit = (int) (value & ((1 << PAGE_BITS) - 1));
+		long mask = 1L << bit;
+		while (true) {
+			long word = page.get(bit >>> 6);
+			if ((word & mask) != 0) {
+				return false;
+			}
+			if (page.compareAndSet(bit >>> 6, word, word | mask)) {
+				return true;
+			}
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.ui.Model;
+
+import com.banking.controller.ApiController;
+import com.banking.controller.BankingController;
+import com.banking.model.PostingRequest;
+import com.banking.model.SessionPrincipal;
+
+// The JSON API against the HTML pages for the same operations. The html
+// benchmarks run the handler and render its Thymeleaf view with the template
+// settings of spring-servlet.xml; the api benchmarks run the handler, which
+// writes the JSON itself. A browser deposit also loads the deposit form with
+// its account dropdown first, which htmlDepositWithForm includes.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ApiBenchmark {
+
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+	@State(Scope.Thread)
+	public static class Client {
+
+		public BankingController bankingController;
+		public ApiController apiController;
+		public PageRenderer renderer;
+		public SessionPrincipal principal;
+		public int accountId;
+		public String etag;
+
+		@Setup(Level.Iteration)
+		public void setUp(BankDatabaseState state) throws Exception {
+			bankingController = new BankingController();
+			bankingController.setBankingService(state.database.getBankingService());
+			bankingController.setIdempotencyStore(state.database.getIdempotencyStore());
+			apiController = new ApiController();
+			apiController.setBankingService(state.database.getBankingService());
+			apiController.setIdempotencyStore(state.database.getIdempotencyStore());
+			renderer = new PageRenderer(false);
+
+			accountId = state.randomAccountId();
+			principal = new SessionPrincipal(accountId, "user" + accountId, "CUSTOMER", accountId,
+					Collections.singletonList(accountId));
+			MockHttpServletResponse response = new BenchmarkResponse();
+			apiController.account(accountId, request(), response);
+			etag = response.getHeader("ETag");
+		}
+
+		public MockHttpServletRequest request() {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+			request.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, principal);
+			return request;
+		}
+	}
+
+	@Benchmark
+	public MockHttpServletResponse htmlViewAccount(Client client) throws Exception {
+		MockHttpServletRequest request = client.request();
+		Model model = new ExtendedModelMap();
+		return client.renderer.render(client.bankingController.viewAccount(client.accountId, request, model)
+				.call(), model,
+				request);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse apiAccount(Client client) throws Exception {
+		MockHttpServletResponse response = new BenchmarkResponse();
+		client.apiController.account(client.accountId, client.request(), response);
+		return response;
+	}
+
+	// a poll of an account that has not changed since the last read
+	@Benchmark
+	public MockHttpServletResponse apiAccountNotModified(Client client) throws Exception {
+		MockHttpServletRequest request = client.request();
+		request.addHeader("If-None-Match", client.etag);
+		MockHttpServletResponse response = new BenchmarkResponse();
+		client.apiController.account(client.accountId, request, response);
+		return response;
+	}
+
+	@Benchmark
+	public MockHttpServletResponse htmlTransactionHistory(Client client) throws Exception {
+		MockHttpServletRequest request = client.request();
+		Model model = new ExtendedModelMap();
+		return client.renderer.render(client.bankingController.transactionHistory(client.accountId, null, 20,
+				request, model)
+				.call(), model, request);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse apiTransactions(Client client) throws Exception {
+		MockHttpServletResponse response = new BenchmarkResponse();
+		client.apiController.transactions(client.accountId, null, 20, client.request(), response);
+		return response;
+	}
+
+	@Benchmark
+	public MockHttpServletResponse htmlDepositWithForm(Client client) throws Exception {
+		MockHttpServletRequest formRequest = client.request();
+		Model form = new ExtendedModelMap();
+		client.renderer.render(client.bankingController.showDepositForm(formRequest, form)
+				.call(), form, formRequest);
+
+		MockHttpServletRequest request = client.request();
+		Model model = new ExtendedModelMap();
+		return client.renderer.render(client.bankingController.deposit(client.accountId, AMOUNT, null, request,
+				model)
+				.call(), model, request);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse apiDeposit(Client client) throws Exception {
+		MockHttpServletResponse response = new BenchmarkResponse();
+		client.apiController.deposit(client.accountId, new PostingRequest(AMOUNT), null, client.request(),
+				response);
+		return response;
+	}
+}
@@ -0,0 +1,28 @@
+package com.banking.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.model.User;
+
+// Login path. Vary the cost with -p passwordIterations=10000,100000,210000
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+	@Benchmark
+	public User authenticate(BankDatabaseState state) {
+		return state.database.getAuthenticationService()
+				.authenticate("user" + state.randomAccountId(), BenchmarkDatabase.PASSWORD);
+	}
+}
@@ -0,0 +1,107 @@
+package com.banking.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.Cookie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import com.banking.interceptor.AuthenticationInterceptor;
+import com.banking.model.SessionPrincipal;
+import com.banking.service.AuthTokenService;
+
+// Per-request cost of AuthenticationInterceptor.preHandle: the session mode
+// reading the principal from an in-memory session against the token mode
+// verifying an HMAC-signed token from a Bearer header or a cookie. The mock
+// session is a local map lookup; a container's session manager, and more so a
+// replicated session store, only add to the session side. Run with -t N to
+// check that verification scales across threads (each keeps its own Mac).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationInterceptorBenchmark {
+
+	@Param({ "1", "20" })
+	public int accounts;
+
+	private AuthenticationInterceptor sessionInterceptor;
+	private AuthenticationInterceptor tokenInterceptor;
+	private SessionPrincipal principal;
+	private String token;
+
+	@State(Scope.Thread)
+	public static class Requests {
+
+		public MockHttpServletRequest session;
+		public MockHttpServletRequest bearer;
+		public MockHttpServletRequest cookie;
+		public MockHttpServletResponse response;
+
+		@Setup
+		public void setUp(AuthenticationInterceptorBenchmark benchmark) {
+			MockHttpSession httpSession = new MockHttpSession();
+			httpSession.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, benchmark.principal);
+			session = new MockHttpServletRequest("GET", "/dashboard");
+			session.setSession(httpSession);
+
+			bearer = new MockHttpServletRequest("GET", "/dashboard");
+			bearer.addHeader("Authorization", "Bearer " + benchmark.token);
+
+			cookie = new MockHttpServletRequest("GET", "/dashboard");
+			cookie.setCookies(new Cookie(AuthTokenService.COOKIE_NAME, benchmark.token));
+
+			response = new MockHttpServletResponse();
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		List<Integer> accountIds = new ArrayList<>();
+		for (int i = 0; i < accounts; i++) {
+			accountIds.add(1000 + i * 7);
+		}
+		principal = new SessionPrincipal(42, "user42", "CUSTOMER", 42, accountIds);
+
+		AuthTokenService authTokenService = new AuthTokenService();
+		authTokenService.setEnabled(true);
+		authTokenService.init();
+		token = authTokenService.issue(principal);
+
+		sessionInterceptor = new AuthenticationInterceptor();
+		tokenInterceptor = new AuthenticationInterceptor();
+		tokenInterceptor.setAuthTokenService(authTokenService);
+	}
+
+	@Benchmark
+	public boolean sessionMode(Requests requests) throws Exception {
+		return sessionInterceptor.preHandle(requests.session, requests.response, null);
+	}
+
+	@Benchmark
+	public boolean tokenModeBearer(Requests requests) throws Exception {
+		return tokenInterceptor.preHandle(requests.bearer, requests.response, null);
+	}
+
+	@Benchmark
+	public boolean tokenModeCookie(Requests requests) throws Exception {
+		return tokenInterceptor.preHandle(requests.cookie, requests.response, null);
+	}
+}
@@ -0,0 +1,42 @@
+package com.banking.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// One seeded database shared by all benchmark threads of a trial.
+// Sizes can be changed on the command line, e.g. -p accountCount=100000
+@State(Scope.Benchmark)
+public class BankDatabaseState {
+
+	@Param("10000")
+	public int accountCount;
+
+	@Param("20")
+	public int transactionsPerAccount;
+
+	@Param("10000")
+	public int passwordIterations;
+
+	public BenchmarkDatabase database;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		database = new BenchmarkDatabase(accountCount, transactionsPerAccount, passwordIterations);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		database.close();
+	}
+
+	public int randomAccountId() {
+		return 1 + ThreadLocalRandom.current()
+				.nextInt(accountCount);
+	}
+}
@@ -0,0 +1,131 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.ui.ExtendedModelMap;
+
+import com.banking.controller.BankingController;
+import com.banking.model.SessionPrincipal;
+
+// Controller handlers up to the view name (template rendering is not included).
+// Their Callables run on the benchmark thread, not on the request executor.
+// The database is seeded at each of the accountCount sizes: a page that reads
+// only the customer's own rows and indexed lookups takes as long at 10M
+// accounts as at 10k. The larger sizes need a bigger heap (-jvmArgs -Xmx...);
+// pick sizes with -p accountCount=10000,1000000.
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BankingControllerBenchmark {
+
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+	@State(Scope.Benchmark)
+	public static class Bank {
+
+		@Param({ "10000", "100000", "1000000", "10000000" })
+		public int accountCount;
+
+		// few ledger lines per account so the largest size fits in memory
+		@Param("5")
+		public int transactionsPerAccount;
+
+		public BenchmarkDatabase database;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			database = new BenchmarkDatabase(accountCount, transactionsPerAccount, 1_000);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws InterruptedException {
+			database.close();
+		}
+
+		public int randomAccountId() {
+			return 1 + ThreadLocalRandom.current()
+					.nextInt(accountCount);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Session {
+
+		public BankingController controller;
+		public MockHttpServletRequest request;
+		public int accountId;
+		public String toAccountNumber;
+
+		@Setup(Level.Iteration)
+		public void setUp(Bank bank) {
+			controller = new BankingController();
+			controller.setBankingService(bank.database.getBankingService());
+			controller.setIdempotencyStore(bank.database.getIdempotencyStore());
+
+			accountId = bank.randomAccountId();
+			int toAccountId;
+			do {
+				toAccountId = bank.randomAccountId();
+			} while (toAccountId == accountId);
+			toAccountNumber = BenchmarkDatabase.accountNumber(toAccountId);
+			MockHttpSession session = new MockHttpSession();
+			session.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, new SessionPrincipal(accountId, "user" + accountId,
+					"CUSTOMER", accountId, Collections.singletonList(accountId)));
+			request = new MockHttpServletRequest();
+			request.setSession(session);
+		}
+	}
+
+	@Benchmark
+	public String showDepositForm(Session session) throws Exception {
+		return session.controller.showDepositForm(session.request, new ExtendedModelMap())
+				.call();
+	}
+
+	@Benchmark
+	public String deposit(Session session) throws Exception {
+		return session.controller.deposit(session.accountId, AMOUNT, null, session.request,
+				new ExtendedModelMap())
+				.call();
+	}
+
+	@Benchmark
+	public String showTransferForm(Session session) throws Exception {
+		return session.controller.showTransferForm(session.request, new ExtendedModelMap())
+				.call();
+	}
+
+	@Benchmark
+	public String transfer(Session session) throws Exception {
+		return session.controller.transfer(session.accountId, session.toAccountNumber, AMOUNT, null, session.request,
+				new ExtendedModelMap())
+				.call();
+	}
+
+	@Benchmark
+	public String transactionHistory(Session session) throws Exception {
+		return session.controller.transactionHistory(session.accountId, null, 20, session.request,
+				new ExtendedModelMap())
+				.call();
+	}
+}
@@ -0,0 +1,51 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.model.Account;
+
+// Money-moving paths in BankingService. Run with -t N for concurrent postings.
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BankingServiceBenchmark {
+
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+	@Benchmark
+	public Account deposit(BankDatabaseState state) {
+		int accountId = state.randomAccountId();
+		return state.database.getBankingService()
+				.deposit(accountId, accountId, AMOUNT);
+	}
+
+	@Benchmark
+	public Account withdraw(BankDatabaseState state) {
+		int accountId = state.randomAccountId();
+		return state.database.getBankingService()
+				.withdraw(accountId, accountId, AMOUNT);
+	}
+
+	@Benchmark
+	public int transfer(BankDatabaseState state) {
+		int fromAccountId = state.randomAccountId();
+		int toAccountId = state.randomAccountId();
+		if (fromAccountId == toAccountId) {
+			toAccountId = fromAccountId % state.accountCount + 1;
+		}
+		state.database.getBankingService()
+				.transfer(fromAccountId, toAccountId, AMOUNT);
+		return toAccountId;
+	}
+}
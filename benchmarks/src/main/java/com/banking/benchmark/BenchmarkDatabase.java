@@ -0,0 +1,372 @@
+package com.banking.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.h2.engine.Mode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.batch.InterestAccrualEngine;
+import com.banking.batch.ReconciliationEngine;
+import com.banking.dao.AccountDao;
+import com.banking.dao.AccountNumberDao;
+import com.banking.dao.CachingAccountDao;
+import com.banking.dao.CustomerDao;
+import com.banking.dao.IdempotencyKeyDao;
+import com.banking.dao.InterestAccrualDao;
+import com.banking.dao.PayrollBatchDao;
+import com.banking.dao.ReconciliationDao;
+import com.banking.dao.TransactionDao;
+import com.banking.dao.UserDao;
+import com.banking.service.AccountNumberAllocator;
+import com.banking.service.AuthenticationService;
+import com.banking.service.BankingService;
+import com.banking.service.BulkService;
+import com.banking.service.IdempotencyStore;
+import com.banking.service.PasswordHasher;
+import com.banking.service.RegistrationFilter;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+// Embedded H2 database in MySQL mode, seeded with a configurable number of
+// customers, accounts and ledger lines, and the application beans wired the
+// same way spring-servlet.xml wires them. setConnectionLatencyMillis makes
+// every connection checkout hold the connection that much longer, to stand
+// in for a slow MySQL; setRoundTripLatencyMicros makes every statement,
+// commit, rollback and autocommit switch wait, as each is a round trip to
+// MySQL, so timings show how many round trips a path makes.
+public class BenchmarkDatabase {
+
+	public static final String PASSWORD = "benchmark-password";
+
+	private static final BigDecimal SEED_BALANCE = new BigDecimal("1000000.00");
+	private static final BigDecimal SEED_DEPOSIT = new BigDecimal("10.00");
+
+	static {
+		// MySQL mode moves the identity sequence after every insert, which races into
+		// duplicate keys under concurrent inserts; the seed restarts identities itself
+		Mode.getInstance("MySQL").updateSequenceOnManualIdentityInsertion = false;
+	}
+
+	private final HikariDataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+	private final int accountCount;
+	private volatile long connectionLatencyNanos;
+	private volatile long roundTripLatencyNanos;
+
+	private final AccountDao accountDao;
+	private final CachingAccountDao cachingAccountDao;
+	private final TransactionDao transactionDao;
+	private final UserDao userDao;
+	private final PasswordHasher passwordHasher;
+	private final AccountNumberDao accountNumberDao;
+	private final TransactionTemplate requiresNewTransactionTemplate;
+	private final AccountNumberAllocator accountNumberAllocator;
+	private final BankingService bankingService;
+	private final BulkService bulkService;
+	private final IdempotencyStore idempotencyStore;
+	private final AuthenticationService authenticationService;
+	private final InterestAccrualEngine interestAccrualEngine;
+	private final ReconciliationEngine reconciliationEngine;
+
+	public BenchmarkDatabase(int accountCount, int transactionsPerAccount, int passwordIterations) {
+		this.accountCount = accountCount;
+
+		HikariConfig config = new HikariConfig();
+		config.setJdbcUrl("jdbc:h2:mem:bench" + System.nanoTime()
+				+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,TRANSACTION;DB_CLOSE_DELAY=-1");
+		config.setMaximumPoolSize(Math.max(8, Runtime.getRuntime()
+				.availableProcessors() * 2));
+		dataSource = new HikariDataSource(config);
+		DataSource slowDataSource = new DelegatingDataSource(dataSource) {
+
+			@Override
+			public Connection getConnection() throws SQLException {
+				Connection connection = super.getConnection();
+				long latency = connectionLatencyNanos;
+				if (latency > 0) {
+					LockSupport.parkNanos(latency);
+				}
+				long roundTrip = roundTripLatencyNanos;
+				return roundTrip > 0 ? withRoundTripLatency(connection, roundTrip) : connection;
+			}
+		};
+		jdbcTemplate = new JdbcTemplate(slowDataSource);
+
+		for (String statement : readSchema().split(";")) {
+			if (!statement.trim()
+					.isEmpty()) {
+				jdbcTemplate.execute(statement);
+			}
+		}
+
+		TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(slowDataSource));
+
+		accountDao = new AccountDao();
+		accountDao.setJdbcTemplate(jdbcTemplate);
+		cachingAccountDao = new CachingAccountDao();
+		cachingAccountDao.setJdbcTemplate(jdbcTemplate);
+		cachingAccountDao.init();
+		CustomerDao customerDao = new CustomerDao();
+		customerDao.setJdbcTemplate(jdbcTemplate);
+		transactionDao = new TransactionDao();
+		transactionDao.setJdbcTemplate(jdbcTemplate);
+		userDao = new UserDao();
+		userDao.setJdbcTemplate(jdbcTemplate);
+
+		passwordHasher = new PasswordHasher();
+		passwordHasher.setIterations(passwordIterations);
+		passwordHasher.start();
+
+		seed(transactionsPerAccount);
+
+		RegistrationFilter registrationFilter = new RegistrationFilter();
+		registrationFilter.setUserDao(userDao);
+		registrationFilter.setCustomerDao(customerDao);
+		registrationFilter.init();
+
+		accountNumberDao = new AccountNumberDao();
+		accountNumberDao.setJdbcTemplate(jdbcTemplate);
+		requiresNewTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+		requiresNewTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		accountNumberAllocator = newAccountNumberAllocator(1_000);
+
+		bankingService = new BankingService();
+		bankingService.setAccountDao(cachingAccountDao);
+		bankingService.setCustomerDao(customerDao);
+		bankingService.setTransactionDao(transactionDao);
+		bankingService.setTransactionTemplate(transactionTemplate);
+		bankingService.setRegistrationFilter(registrationFilter);
+		bankingService.setAccountNumberAllocator(accountNumberAllocator);
+		PayrollBatchDao payrollBatchDao = new PayrollBatchDao();
+		payrollBatchDao.setJdbcTemplate(jdbcTemplate);
+		bankingService.setPayrollBatchDao(payrollBatchDao);
+
+		IdempotencyKeyDao idempotencyKeyDao = new IdempotencyKeyDao();
+		idempotencyKeyDao.setJdbcTemplate(jdbcTemplate);
+		idempotencyStore = new IdempotencyStore();
+		idempotencyStore.setIdempotencyKeyDao(idempotencyKeyDao);
+		idempotencyStore.init();
+
+		bulkService = new BulkService();
+		bulkService.setAccountDao(cachingAccountDao);
+		bulkService.setCustomerDao(customerDao);
+		bulkService.setTransactionDao(transactionDao);
+		bulkService.setTransactionTemplate(transactionTemplate);
+		bulkService.setRegistrationFilter(registrationFilter);
+		bulkService.setAccountNumberAllocator(accountNumberAllocator);
+
+		authenticationService = new AuthenticationService();
+		authenticationService.setUserDao(userDao);
+		authenticationService.setCustomerDao(customerDao);
+		authenticationService.setPasswordHasher(passwordHasher);
+		authenticationService.setRegistrationFilter(registrationFilter);
+		authenticationService.setTransactionTemplate(transactionTemplate);
+
+		InterestAccrualDao interestAccrualDao = new InterestAccrualDao();
+		interestAccrualDao.setJdbcTemplate(jdbcTemplate);
+		interestAccrualEngine = new InterestAccrualEngine();
+		interestAccrualEngine.setAccountDao(accountDao);
+		interestAccrualEngine.setTransactionDao(transactionDao);
+		interestAccrualEngine.setInterestAccrualDao(interestAccrualDao);
+		interestAccrualEngine.setTransactionTemplate(transactionTemplate);
+		interestAccrualEngine.setAnnualRates(Collections.singletonMap("SAVINGS", new BigDecimal("0.035")));
+
+		ReconciliationDao reconciliationDao = new ReconciliationDao();
+		reconciliationDao.setJdbcTemplate(jdbcTemplate);
+		reconciliationEngine = new ReconciliationEngine();
+		reconciliationEngine.setAccountDao(accountDao);
+		reconciliationEngine.setReconciliationDao(reconciliationDao);
+		reconciliationEngine.setTransactionTemplate(transactionTemplate);
+	}
+
+	public void close() throws InterruptedException {
+		passwordHasher.stop();
+		dataSource.close();
+	}
+
+	// one customer and one user per account; account ids and customer ids run 1..accountCount
+	private void seed(int transactionsPerAccount) {
+		int chunk = 1_000;
+		String hash = passwordHasher.hash(PASSWORD);
+
+		for (int from = 1; from <= accountCount; from += chunk) {
+			int to = Math.min(accountCount, from + chunk - 1);
+			List<Object[]> customers = new ArrayList<>();
+			List<Object[]> accounts = new ArrayList<>();
+			List<Object[]> users = new ArrayList<>();
+			List<Object[]> transactions = new ArrayList<>();
+
+			for (int id = from; id <= to; id++) {
+				customers.add(new Object[] { id, "First" + id, "Last" + id, "user" + id + "@bench.local", "555" + id });
+				accounts.add(new Object[] { id, id, accountNumber(id), SEED_BALANCE,
+						id % 2 == 0 ? "SAVINGS" : "CURRENT" });
+				users.add(new Object[] { "user" + id, hash, "user" + id + "@bench.local", "CUSTOMER", id });
+				// a consistent ledger: one opening deposit, then equal deposits up to the seeded balance
+				BigDecimal balanceAfter = SEED_BALANCE.subtract(SEED_DEPOSIT.multiply(BigDecimal.valueOf(Math.max(0,
+						transactionsPerAccount - 1))));
+				for (int t = 0; t < transactionsPerAccount; t++) {
+					transactions.add(new Object[] { id, "DEPOSIT", t == 0 ? balanceAfter : SEED_DEPOSIT, "seed",
+							balanceAfter });
+					balanceAfter = balanceAfter.add(SEED_DEPOSIT);
+				}
+			}
+
+			jdbcTemplate.batchUpdate(
+					"INSERT INTO customer (customer_id, first_name, last_name, email, phone) VALUES (?, ?, ?, ?, ?)",
+					customers);
+			jdbcTemplate.batchUpdate(
+					"INSERT INTO account (account_id, customer_id, account_number, balance, account_type) VALUES (?, ?, ?, ?, ?)",
+					accounts);
+			jdbcTemplate.batchUpdate(
+					"INSERT INTO user (username, password, email, role, customer_id, active) VALUES (?, ?, ?, ?, ?, TRUE)",
+					users);
+			if (!transactions.isEmpty()) {
+				jdbcTemplate.batchUpdate(
+						"INSERT INTO transaction (account_id, transaction_type, amount, description, balance_after) VALUES (?, ?, ?, ?, ?)",
+						transactions);
+			}
+		}
+
+		// the explicit ids above do not advance the identity columns
+		jdbcTemplate.execute("ALTER TABLE customer ALTER COLUMN customer_id RESTART WITH " + (accountCount + 1));
+		jdbcTemplate.execute("ALTER TABLE account ALTER COLUMN account_id RESTART WITH " + (accountCount + 1));
+	}
+
+	// the account number seeded for an account id
+	public static String accountNumber(int accountId) {
+		return "ACC" + (1_000_000_000L + accountId);
+	}
+
+	private static Connection withRoundTripLatency(Connection connection, long nanos) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					String name = method.getName();
+					if (name.equals("commit") || name.equals("rollback") || name.equals("setAutoCommit")) {
+						LockSupport.parkNanos(nanos);
+					}
+					Object result = invoke(connection, method, args);
+					if (result instanceof Statement) {
+						return withRoundTripLatency((Statement) result, method.getReturnType(), nanos);
+					}
+					return result;
+				});
+	}
+
+	// type is Statement, PreparedStatement or CallableStatement, as the factory method declared
+	private static Object withRoundTripLatency(Statement statement, Class<?> type, long nanos) {
+		return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					if (method.getName()
+							.startsWith("execute")) {
+						LockSupport.parkNanos(nanos);
+					}
+					return invoke(statement, method, args);
+				});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static String readSchema() {
+		try (InputStream in = BenchmarkDatabase.class.getResourceAsStream("/schema.sql")) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalStateException("cannot read schema.sql", e);
+		}
+	}
+
+	public void setConnectionLatencyMillis(long millis) {
+		connectionLatencyNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	public void setRoundTripLatencyMicros(long micros) {
+		roundTripLatencyNanos = TimeUnit.MICROSECONDS.toNanos(micros);
+	}
+
+	public int getMaximumPoolSize() {
+		return dataSource.getMaximumPoolSize();
+	}
+
+	public int getAccountCount() {
+		return accountCount;
+	}
+
+	public JdbcTemplate getJdbcTemplate() {
+		return jdbcTemplate;
+	}
+
+	public AccountDao getAccountDao() {
+		return accountDao;
+	}
+
+	public CachingAccountDao getCachingAccountDao() {
+		return cachingAccountDao;
+	}
+
+	public TransactionDao getTransactionDao() {
+		return transactionDao;
+	}
+
+	public AccountNumberAllocator getAccountNumberAllocator() {
+		return accountNumberAllocator;
+	}
+
+	// another allocator on the same sequence, standing in for a second app node
+	public AccountNumberAllocator newAccountNumberAllocator(int blockSize) {
+		AccountNumberAllocator allocator = new AccountNumberAllocator();
+		allocator.setAccountNumberDao(accountNumberDao);
+		allocator.setTransactionTemplate(requiresNewTransactionTemplate);
+		allocator.setBlockSize(blockSize);
+		allocator.init();
+		return allocator;
+	}
+
+	public BankingService getBankingService() {
+		return bankingService;
+	}
+
+	public BulkService getBulkService() {
+		return bulkService;
+	}
+
+	public IdempotencyStore getIdempotencyStore() {
+		return idempotencyStore;
+	}
+
+	public AuthenticationService getAuthenticationService() {
+		return authenticationService;
+	}
+
+	public InterestAccrualEngine getInterestAccrualEngine() {
+		return interestAccrualEngine;
+	}
+
+	public ReconciliationEngine getReconciliationEngine() {
+		return reconciliationEngine;
+	}
+}
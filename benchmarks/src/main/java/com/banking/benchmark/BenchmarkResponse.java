@@ -0,0 +1,70 @@
+package com.banking.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.springframework.mock.web.MockHttpServletResponse;
+
+// MockHttpServletResponse writes its body a byte at a time and flushes the
+// writer on every write, which costs more than rendering a page. This one
+// buffers the body the way a container does, so only the handler is measured.
+public class BenchmarkResponse extends MockHttpServletResponse {
+
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream(16 * 1024);
+	private ServletOutputStream outputStream;
+	private PrintWriter writer;
+
+	@Override
+	public ServletOutputStream getOutputStream() {
+		if (outputStream == null) {
+			outputStream = new ServletOutputStream() {
+
+				@Override
+				public void write(int b) {
+					body.write(b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+					body.write(b, off, len);
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setWriteListener(WriteListener writeListener) {
+				}
+			};
+		}
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws UnsupportedEncodingException {
+		if (writer == null) {
+			writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	@Override
+	public byte[] getContentAsByteArray() {
+		if (writer != null) {
+			writer.flush();
+		}
+		return body.toByteArray();
+	}
+
+	@Override
+	public String getContentAsString() throws UnsupportedEncodingException {
+		return new String(getContentAsByteArray(), getCharacterEncoding());
+	}
+}
@@ -0,0 +1,83 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.model.Account;
+import com.banking.model.BulkAccountRequest;
+import com.banking.model.BulkItemResult;
+import com.banking.model.BulkPostingRequest;
+
+// Single-item paths against one bulk chunk of the same work. Scores are per
+// item (ops/ms), so the bulk and single rows compare directly.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkBenchmark {
+
+	private static final int CHUNK = 500;
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+	private static final AtomicLong CUSTOMERS = new AtomicLong();
+
+	@Benchmark
+	public Account openAccountSingle(BankDatabaseState state) {
+		long n = CUSTOMERS.incrementAndGet();
+		return state.database.getBankingService()
+				.createAccount("Bulk", "Customer" + n, "bulk" + n + "@bench.local", "555", AMOUNT, "SAVINGS");
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CHUNK)
+	public List<BulkItemResult> openAccountsBulk(BankDatabaseState state) {
+		List<BulkAccountRequest> requests = new ArrayList<>(CHUNK);
+		for (int i = 0; i < CHUNK; i++) {
+			long n = CUSTOMERS.incrementAndGet();
+			requests.add(BulkAccountRequest.builder()
+					.firstName("Bulk")
+					.lastName("Customer" + n)
+					.email("bulk" + n + "@bench.local")
+					.phone("555")
+					.initialDeposit(AMOUNT)
+					.accountType("SAVINGS")
+					.build());
+		}
+		return state.database.getBulkService()
+				.openAccounts(1, requests);
+	}
+
+	@Benchmark
+	public Account creditSingle(BankDatabaseState state) {
+		int accountId = state.randomAccountId();
+		return state.database.getBankingService()
+				.deposit(accountId, accountId, AMOUNT);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CHUNK)
+	public List<BulkItemResult> creditBulk(BankDatabaseState state) {
+		List<BulkPostingRequest> requests = new ArrayList<>(CHUNK);
+		for (int i = 0; i < CHUNK; i++) {
+			requests.add(BulkPostingRequest.builder()
+					.accountId(state.randomAccountId())
+					.amount(AMOUNT)
+					.description("payroll")
+					.build());
+		}
+		return state.database.getBulkService()
+				.postCredits(1, requests);
+	}
+}
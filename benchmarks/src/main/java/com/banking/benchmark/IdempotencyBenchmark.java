@@ -0,0 +1,75 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.model.Account;
+
+// Deposit cost with no key, with a fresh key (claim and store), and for a
+// repeated key answered from memory. Runs on 4 threads to show contention.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class IdempotencyBenchmark {
+
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+	private static final int REPEATED_KEYS = 10_000;
+
+	private final AtomicLong nextKey = new AtomicLong();
+	private int accountId;
+	private int customerId;
+
+	@Setup(Level.Trial)
+	public void setUp(BankDatabaseState state) {
+		accountId = 1;
+		customerId = state.database.getJdbcTemplate()
+				.queryForObject("SELECT customer_id FROM account WHERE account_id = ?", Integer.class, accountId);
+		// the keys the repeat benchmark draws from, each run once here
+		for (int i = 0; i < REPEATED_KEYS; i++) {
+			deposit(state, "repeat-" + i);
+		}
+	}
+
+	@Benchmark
+	public Account depositWithoutKey(BankDatabaseState state) {
+		return state.database.getBankingService()
+				.deposit(accountId, customerId, AMOUNT);
+	}
+
+	@Benchmark
+	public Account depositNewKey(BankDatabaseState state) {
+		return deposit(state, "new-" + nextKey.incrementAndGet());
+	}
+
+	@Benchmark
+	public Account depositRepeatedKey(BankDatabaseState state) {
+		return deposit(state, "repeat-" + ThreadLocalRandom.current()
+				.nextInt(REPEATED_KEYS));
+	}
+
+	private Account deposit(BankDatabaseState state, String key) {
+		return state.database.getIdempotencyStore()
+				.execute("customer-" + customerId, key, "deposit:" + accountId + ":" + AMOUNT.toPlainString(),
+						Account.class, () -> state.database.getBankingService()
+								.deposit(accountId, customerId, AMOUNT));
+	}
+}
@@ -0,0 +1,53 @@
+package com.banking.benchmark;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.model.InterestAccrualRun;
+
+// One full accrual pass over the seeded accounts per invocation, each for a
+// new date so no range is skipped. Vary -p workers and -p rangeSize.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterestAccrualBenchmark {
+
+	@Param("4")
+	public int workers;
+
+	@Param("500")
+	public int rangeSize;
+
+	private LocalDate nextDate = LocalDate.of(2000, 1, 1);
+
+	@Setup(Level.Trial)
+	public void setUp(BankDatabaseState state) {
+		state.database.getInterestAccrualEngine()
+				.setWorkers(workers);
+		state.database.getInterestAccrualEngine()
+				.setRangeSize(rangeSize);
+	}
+
+	@Benchmark
+	public InterestAccrualRun accrueAll(BankDatabaseState state) {
+		nextDate = nextDate.plusDays(1);
+		return state.database.getInterestAccrualEngine()
+				.run(nextDate);
+	}
+}
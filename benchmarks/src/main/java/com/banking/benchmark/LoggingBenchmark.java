@@ -0,0 +1,82 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+
+// Logging cost of one /deposit request (the lines the interceptors, controller and
+// service write) under the synchronous dev setup and the async JSON prod setup.
+// Run with -t 8 or more to see the effect of request threads contending on the file.
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+	private static final String REQUEST_ID = UUID.randomUUID()
+			.toString();
+
+	@Param({ "logging-sync.xml", "logging-async.xml" })
+	public String configuration;
+
+	private LoggerContext context;
+	private Logger controllerLogger;
+	private Logger serviceLogger;
+	private Logger interceptorLogger;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		context = new LoggerContext();
+		JoranConfigurator configurator = new JoranConfigurator();
+		configurator.setContext(context);
+		configurator.doConfigure(LoggingBenchmark.class.getResource("/" + configuration));
+		context.start();
+
+		controllerLogger = context.getLogger("com.banking.controller.BankingController");
+		serviceLogger = context.getLogger("com.banking.service.BankingService");
+		interceptorLogger = context.getLogger("com.banking.interceptor.RequestContextInterceptor");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.stop();
+	}
+
+	@Benchmark
+	public void depositRequest() {
+		MDC.put("requestId", REQUEST_ID);
+		try {
+			int accountId = 42;
+			BigDecimal amount = BigDecimal.TEN;
+			controllerLogger.info("request: deposit - accountId{},amount={},", accountId, amount);
+			serviceLogger.info("deposit successful: accountId={}, amount={}, newBalance={}", accountId, amount,
+					amount);
+			controllerLogger.info("response: deposit successful - accountId={},newBalance={}", accountId, amount);
+			interceptorLogger.info("request complete: uri={}, sqlStatements={}, accountCacheHits={}",
+					"/SimpleBankApp/deposit", 4, 0);
+		} finally {
+			MDC.remove("requestId");
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.banking.benchmark;
+
+import java.util.Locale;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.ui.Model;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import com.banking.web.TemplatePrewarmer;
+
+// Renders the application's Thymeleaf pages the way spring-servlet.xml sets
+// them up, from copies of WEB-INF/views on the benchmark classpath.
+public class PageRenderer {
+
+	private final GenericWebApplicationContext context;
+	private final SpringTemplateEngine templateEngine;
+	private final ThymeleafViewResolver viewResolver;
+
+	public PageRenderer(boolean cacheable) {
+		MockServletContext servletContext = new MockServletContext();
+		context = new GenericWebApplicationContext(servletContext);
+		context.refresh();
+
+		ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+		templateResolver.setPrefix("views/");
+		templateResolver.setSuffix(".html");
+		templateResolver.setTemplateMode("HTML");
+		templateResolver.setCacheable(cacheable);
+		templateResolver.setCharacterEncoding("UTF-8");
+
+		templateEngine = new SpringTemplateEngine();
+		templateEngine.setTemplateResolver(templateResolver);
+		templateEngine.setEnableSpringELCompiler(true);
+
+		viewResolver = new ThymeleafViewResolver();
+		viewResolver.setTemplateEngine(templateEngine);
+		viewResolver.setCharacterEncoding("UTF-8");
+		viewResolver.setApplicationContext(context);
+	}
+
+	// what TemplatePrewarmer does at startup
+	public void prewarm(String... templates) {
+		for (String template : templates) {
+			TemplatePrewarmer.prewarm(templateEngine, template);
+		}
+	}
+
+	public int getCachedTemplateCount() {
+		return templateEngine.getConfiguration()
+				.getCacheManager()
+				.getTemplateCache()
+				.keySet()
+				.size();
+	}
+
+	// render a handler's view name and model; returns the response holding the page
+	public MockHttpServletResponse render(String viewName, Model model, MockHttpServletRequest request)
+			throws Exception {
+		MockHttpServletResponse response = new BenchmarkResponse();
+		render(viewName, model, request, response);
+		return response;
+	}
+
+	public void render(String viewName, Model model, HttpServletRequest request, HttpServletResponse response)
+			throws Exception {
+		if (viewName.startsWith("redirect:")) {
+			throw new IllegalStateException("handler redirected: " + viewName);
+		}
+		request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, context);
+		View view = viewResolver.resolveViewName(viewName, Locale.ENGLISH);
+		view.render(model.asMap(), request, response);
+	}
+}
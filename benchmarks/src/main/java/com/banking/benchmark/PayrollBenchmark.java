@@ -0,0 +1,77 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.model.PayrollCredit;
+import com.banking.model.PayrollResult;
+
+// Paying RECIPIENTS accounts from account 1: one transfer per recipient
+// against one payroll batch. Scores are per recipient (ops/ms).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayrollBenchmark {
+
+	private static final int RECIPIENTS = 1_000;
+	private static final int SOURCE_ACCOUNT_ID = 1;
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+	private int customerId;
+	private List<PayrollCredit> credits;
+
+	@Setup(Level.Trial)
+	public void setUp(BankDatabaseState state) {
+		// enough in the source account for every invocation of the trial
+		state.database.getJdbcTemplate()
+				.update("UPDATE account SET balance = ? WHERE account_id = ?", new BigDecimal("1000000000000"),
+						SOURCE_ACCOUNT_ID);
+		customerId = state.database.getJdbcTemplate()
+				.queryForObject("SELECT customer_id FROM account WHERE account_id = ?", Integer.class,
+						SOURCE_ACCOUNT_ID);
+
+		credits = new ArrayList<>(RECIPIENTS);
+		for (int i = 0; i < RECIPIENTS; i++) {
+			credits.add(PayrollCredit.builder()
+					.accountId(2 + i % (state.accountCount - 1))
+					.amount(AMOUNT)
+					.build());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(RECIPIENTS)
+	public void transferEach(BankDatabaseState state) {
+		for (PayrollCredit credit : credits) {
+			state.database.getBankingService()
+					.transfer(SOURCE_ACCOUNT_ID, credit.getAccountId(), credit.getAmount());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(RECIPIENTS)
+	public PayrollResult payrollBatch(BankDatabaseState state) {
+		return state.database.getBankingService()
+				.payroll(UUID.randomUUID()
+						.toString(), SOURCE_ACCOUNT_ID, customerId, credits);
+	}
+}
@@ -0,0 +1,96 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.dao.AccountDao;
+import com.banking.model.Account;
+import com.banking.model.Transaction;
+
+// One deposit before and after the conditional balance update. readModifyWrite
+// is the old path: the controller's ownership read, the service's read, an
+// unlocked UPDATE and the ledger INSERT, each auto-committed.
+// conditionalUpdate is BankingService.deposit. With roundTripMicros set, every
+// statement, commit and autocommit switch waits that long, so the time per
+// posting follows the number of round trips to MySQL.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostingBenchmark {
+
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+	@Param("1000")
+	public int accountCount;
+
+	@Param({ "0", "500" })
+	public int roundTripMicros;
+
+	private BenchmarkDatabase database;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		database = new BenchmarkDatabase(accountCount, 1, 1_000);
+		database.setRoundTripLatencyMicros(roundTripMicros);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		database.close();
+	}
+
+	@Benchmark
+	public Account readModifyWrite() {
+		int accountId = randomAccountId();
+		AccountDao accountDao = database.getAccountDao();
+		// seeded customer ids equal account ids
+		if (accountDao.getAccountById(accountId)
+				.getCustomerId() != accountId) {
+			throw new IllegalStateException("unauthorized access to account.");
+		}
+		Account account = accountDao.getAccountById(accountId);
+		BigDecimal newBalance = account.getBalance()
+				.add(AMOUNT);
+		accountDao.updateBalance(accountId, newBalance);
+		database.getTransactionDao()
+				.createTransaction(Transaction.builder()
+						.accountId(accountId)
+						.transactionType("DEPOSIT")
+						.amount(AMOUNT)
+						.description("Deposit")
+						.balanceAfter(newBalance)
+						.build());
+		account.setBalance(newBalance);
+		return account;
+	}
+
+	@Benchmark
+	public Account conditionalUpdate() {
+		int accountId = randomAccountId();
+		return database.getBankingService()
+				.deposit(accountId, accountId, AMOUNT);
+	}
+
+	private int randomAccountId() {
+		return 1 + ThreadLocalRandom.current()
+				.nextInt(accountCount);
+	}
+}
@@ -0,0 +1,55 @@
+package com.banking.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.model.ReconciliationReport;
+
+// Full re-verify of every seeded ledger line, and an incremental pass that
+// finds nothing new. Vary -p workers and -p rangeSize.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReconciliationBenchmark {
+
+	@Param("4")
+	public int workers;
+
+	@Param("500")
+	public int rangeSize;
+
+	@Setup(Level.Trial)
+	public void setUp(BankDatabaseState state) {
+		state.database.getReconciliationEngine()
+				.setWorkers(workers);
+		state.database.getReconciliationEngine()
+				.setRangeSize(rangeSize);
+	}
+
+	@Benchmark
+	public ReconciliationReport fullVerify(BankDatabaseState state) {
+		return state.database.getReconciliationEngine()
+				.run(true);
+	}
+
+	@Benchmark
+	public ReconciliationReport incremental(BankDatabaseState state) {
+		return state.database.getReconciliationEngine()
+				.run(false);
+	}
+}
@@ -0,0 +1,247 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.banking.controller.AuthenticationController;
+import com.banking.controller.BankingController;
+import com.banking.interceptor.ConcurrencyLimitInterceptor;
+import com.banking.model.SessionPrincipal;
+
+// A flood of transfers against a slow database (dbLatencyMillis per
+// connection checkout) with logins arriving alongside. "sync" runs the
+// handlers as they ran before, on a container thread for the whole request;
+// "async" runs them as spring-servlet.xml does now, behind the endpoint
+// concurrency limits and on the request executor, with the same settings.
+// There is no servlet container here, so its worker pool is modelled as
+// containerThreads fair permits, held while a request occupies a worker: for
+// the whole handler in sync mode, for the handoff and the dispatch back in
+// async mode. Each benchmark thread is one user waiting for its response;
+// change the mix with -tg <login users>,<transfer users> (JMH orders the
+// group by method name).
+// Compare the login percentiles between the modes. The transfers, logins
+// and limited counters are the rates of requests completed and turned away
+// with 503; requests still running when an iteration ends are counted too,
+// so where they take seconds (sync mode) read the primary throughput
+// instead, which is exact. A turned away user waits about
+// backoffMillis before the next try, as a client honouring Retry-After would.
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestExecutionBenchmark {
+
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+	@Param({ "sync", "async" })
+	public String mode;
+
+	@Param("20")
+	public int dbLatencyMillis;
+
+	// Tomcat's default maxThreads
+	@Param("200")
+	public int containerThreads;
+
+	@Param("100")
+	public int backoffMillis;
+
+	private Semaphore containerWorkers;
+	private ThreadPoolTaskExecutor requestExecutor;
+	private ConcurrencyLimitInterceptor limiter;
+	private BankingController bankingController;
+	private AuthenticationController authenticationController;
+
+	@State(Scope.Thread)
+	public static class User {
+
+		public int accountId;
+		public String toAccountNumber;
+		public SessionPrincipal principal;
+
+		@Setup(Level.Trial)
+		public void setUp(BankDatabaseState state) {
+			accountId = state.randomAccountId();
+			int toAccountId;
+			do {
+				toAccountId = state.randomAccountId();
+			} while (toAccountId == accountId);
+			toAccountNumber = BenchmarkDatabase.accountNumber(toAccountId);
+			principal = new SessionPrincipal(accountId, "user" + accountId, "CUSTOMER", accountId,
+					Collections.singletonList(accountId));
+		}
+
+		public MockHttpServletRequest request(String pattern, boolean loggedIn) {
+			MockHttpServletRequest request = new MockHttpServletRequest("POST", pattern);
+			request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+			if (loggedIn) {
+				request.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, principal);
+			}
+			return request;
+		}
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Outcomes {
+
+		public long transfers;
+		public long logins;
+		public long limited;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			transfers = 0;
+			logins = 0;
+			limited = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp(BankDatabaseState state) {
+		state.database.setConnectionLatencyMillis(dbLatencyMillis);
+		containerWorkers = new Semaphore(containerThreads, true);
+
+		// as configured in spring-servlet.xml
+		requestExecutor = new ThreadPoolTaskExecutor();
+		requestExecutor.setCorePoolSize(50);
+		requestExecutor.setMaxPoolSize(50);
+		requestExecutor.setQueueCapacity(500);
+		requestExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		requestExecutor.setThreadNamePrefix("requestExecutor-");
+		requestExecutor.initialize();
+
+		Map<String, Integer> limits = new HashMap<>();
+		limits.put("POST /deposit", 6);
+		limits.put("POST /withdraw", 6);
+		limits.put("POST /transfer", 6);
+		limits.put("POST /createAccount", 2);
+		limits.put("POST /register", 2);
+		limits.put("POST /login", 20);
+		limiter = new ConcurrencyLimitInterceptor();
+		limiter.setLimits(limits);
+		limiter.setDefaultLimit(40);
+
+		bankingController = new BankingController();
+		bankingController.setBankingService(state.database.getBankingService());
+		bankingController.setIdempotencyStore(state.database.getIdempotencyStore());
+		authenticationController = new AuthenticationController();
+		authenticationController.setAuthenticationService(state.database.getAuthenticationService());
+		authenticationController.setBankingService(state.database.getBankingService());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown(BankDatabaseState state) {
+		requestExecutor.shutdown();
+		state.database.setConnectionLatencyMillis(0);
+	}
+
+	@Benchmark
+	@Group("flood")
+	@GroupThreads(240)
+	public int transfer(User user, Outcomes outcomes) throws Exception {
+		MockHttpServletRequest request = user.request("/transfer", true);
+		int status = execute(request, bankingController.transfer(user.accountId, user.toAccountNumber, AMOUNT, null,
+				request, new ExtendedModelMap()));
+		if (!limited(status, outcomes)) {
+			outcomes.transfers++;
+		}
+		return status;
+	}
+
+	@Benchmark
+	@Group("flood")
+	@GroupThreads(4)
+	public int login(User user, Outcomes outcomes) throws Exception {
+		MockHttpServletRequest request = user.request("/login", false);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		int status = execute(request, authenticationController.login(user.principal.getUsername(),
+				BenchmarkDatabase.PASSWORD, request, response, new ExtendedModelMap()));
+		if (!limited(status, outcomes)) {
+			outcomes.logins++;
+		}
+		return status;
+	}
+
+	private boolean limited(int status, Outcomes outcomes) {
+		if (status != HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+			return false;
+		}
+		outcomes.limited++;
+		// jittered, so turned away users do not retry in step
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis / 2 + ThreadLocalRandom.current()
+				.nextInt(backoffMillis)));
+		return true;
+	}
+
+	// one request through the modelled container; the status it ends with
+	private int execute(MockHttpServletRequest request, Callable<String> handler) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		containerWorkers.acquire();
+		if ("sync".equals(mode)) {
+			try {
+				handler.call();
+				return response.getStatus();
+			} finally {
+				containerWorkers.release();
+			}
+		}
+
+		Future<String> result;
+		try {
+			if (!limiter.preHandle(request, response, null)) {
+				return response.getStatus();
+			}
+			result = requestExecutor.submit(handler);
+		} finally {
+			containerWorkers.release();
+		}
+		try {
+			result.get();
+		} finally {
+			// the async dispatch that renders the page
+			containerWorkers.acquire();
+			try {
+				limiter.afterCompletion(request, response, null, null);
+			} finally {
+				containerWorkers.release();
+			}
+		}
+		return response.getStatus();
+	}
+}
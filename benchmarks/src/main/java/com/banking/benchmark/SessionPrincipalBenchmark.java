@@ -0,0 +1,169 @@
+package com.banking.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banking.model.Account;
+import com.banking.model.SessionPrincipal;
+import com.banking.model.User;
+
+// What a replicated session costs: the old attribute set (full User with its
+// password hash plus four loose attributes) against the compact principal.
+// User itself is not Serializable, so the old set is measured through
+// SessionUser, a copy with the same fields, as it would have to be to
+// replicate at all.
+// The serialize benchmarks report the serialized size as the "bytes" counter;
+// run with -prof gc and read gc.alloc.rate.norm on the build benchmarks for
+// the heap footprint of each. The ownership benchmarks compare the principal
+// lookup with the account read it replaces.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionPrincipalBenchmark {
+
+	@Param({ "1", "20" })
+	public int accounts;
+
+	private User user;
+	private List<Integer> accountIds;
+	private Map<String, Object> legacySession;
+	private SessionPrincipal principal;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class SerializedSize {
+
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp(BankDatabaseState state) {
+		user = state.database.getJdbcTemplate()
+				.queryForObject("SELECT * FROM user WHERE user_id = 1", (rs, rowNum) -> User.builder()
+						.userId(rs.getInt("user_id"))
+						.username(rs.getString("username"))
+						.password(rs.getString("password"))
+						.email(rs.getString("email"))
+						.role(rs.getString("role"))
+						.customerId(rs.getInt("customer_id"))
+						.active(rs.getBoolean("active"))
+						.createdDate(rs.getTimestamp("created_date"))
+						.build());
+		accountIds = new ArrayList<>();
+		for (int i = 0; i < accounts; i++) {
+			accountIds.add(user.getCustomerId() + i * 7);
+		}
+		legacySession = buildLegacySession();
+		principal = buildPrincipal();
+	}
+
+	@Benchmark
+	public Map<String, Object> buildLegacySession() {
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put("loggedInUser", new SessionUser(user));
+		attributes.put("userId", user.getUserId());
+		attributes.put("username", user.getUsername());
+		attributes.put("role", user.getRole());
+		attributes.put("customerId", user.getCustomerId());
+		return attributes;
+	}
+
+	@Benchmark
+	public SessionPrincipal buildPrincipal() {
+		return new SessionPrincipal(user.getUserId(), user.getUsername(), user.getRole(), user.getCustomerId(),
+				accountIds);
+	}
+
+	@Benchmark
+	public byte[] serializeLegacySession(SerializedSize size) throws IOException {
+		byte[] data = serialize(legacySession);
+		size.bytes = data.length;
+		return data;
+	}
+
+	@Benchmark
+	public byte[] serializePrincipal(SerializedSize size) throws IOException {
+		// the same map shape a session store writes, with the principal as the only attribute
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put(SessionPrincipal.SESSION_ATTRIBUTE, principal);
+		byte[] data = serialize(attributes);
+		size.bytes = data.length;
+		return data;
+	}
+
+	@Benchmark
+	public boolean ownsAccountFromPrincipal() {
+		return principal.ownsAccount(user.getCustomerId());
+	}
+
+	@Benchmark
+	public boolean ownsAccountFromDatabase(BankDatabaseState state) {
+		Account account = state.database.getBankingService()
+				.getAccountDetails(user.getCustomerId());
+		return account.getCustomerId()
+				.equals(user.getCustomerId());
+	}
+
+	private static final class SessionUser implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Integer userId;
+		private final String username;
+		private final String password;
+		private final String email;
+		private final String role;
+		private final Integer customerId;
+		private final boolean active;
+		private final Date createdDate;
+
+		private SessionUser(User user) {
+			userId = user.getUserId();
+			username = user.getUsername();
+			password = user.getPassword();
+			email = user.getEmail();
+			role = user.getRole();
+			customerId = user.getCustomerId();
+			active = user.isActive();
+			createdDate = user.getCreatedDate();
+		}
+	}
+
+	private static byte[] serialize(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(value);
+		}
+		return bytes.toByteArray();
+	}
+}
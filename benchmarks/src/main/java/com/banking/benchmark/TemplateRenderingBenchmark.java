@@ -0,0 +1,145 @@
+package com.banking.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.ui.Model;
+
+import com.banking.controller.BankingController;
+import com.banking.model.SessionPrincipal;
+import com.banking.web.CompressionFilter;
+
+// CPU per rendered page, template cache off (the old setting) against on
+// with the templates prewarmed, with and without CompressionFilter gzipping
+// the output. Models come from the real handlers once per trial, so only
+// rendering (and compressing) is measured. The "bytes" counter is the size
+// of the page as sent.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateRenderingBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean templateCache;
+
+	@Param({ "none", "gzip" })
+	public String compression;
+
+	private PageRenderer renderer;
+	private CompressionFilter compressionFilter;
+	private Page accountDetails;
+	private Page transactionHistory;
+	private Page depositForm;
+
+	private static final class Page {
+
+		private final String viewName;
+		private final Model model;
+
+		private Page(String viewName, Model model) {
+			this.viewName = viewName;
+			this.model = model;
+		}
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class PageSize {
+
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp(BankDatabaseState state) throws Exception {
+		renderer = new PageRenderer(templateCache);
+		if (templateCache) {
+			renderer.prewarm("account-details", "transaction-history", "deposit", "fragments/account-select");
+		}
+		compressionFilter = new CompressionFilter();
+
+		BankingController controller = new BankingController();
+		controller.setBankingService(state.database.getBankingService());
+		int accountId = state.randomAccountId();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, new SessionPrincipal(accountId, "user" + accountId,
+				"CUSTOMER", accountId, Collections.singletonList(accountId)));
+
+		Model model = new ExtendedModelMap();
+		accountDetails = new Page(controller.viewAccount(accountId, request, model)
+				.call(), model);
+		model = new ExtendedModelMap();
+		transactionHistory = new Page(controller.transactionHistory(accountId, null, 20, request, model)
+				.call(), model);
+		model = new ExtendedModelMap();
+		depositForm = new Page(controller.showDepositForm(request, model)
+				.call(), model);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse accountDetails(PageSize size) throws Exception {
+		return render(accountDetails, size);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse transactionHistory(PageSize size) throws Exception {
+		return render(transactionHistory, size);
+	}
+
+	// includes the shared account dropdown fragment
+	@Benchmark
+	public MockHttpServletResponse depositForm(PageSize size) throws Exception {
+		return render(depositForm, size);
+	}
+
+	private MockHttpServletResponse render(Page page, PageSize size) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/" + page.viewName);
+		MockHttpServletResponse response = new BenchmarkResponse();
+		if ("gzip".equals(compression)) {
+			request.addHeader("Accept-Encoding", "gzip");
+			compressionFilter.doFilter(request, response, renderChain(page));
+		} else {
+			renderer.render(page.viewName, page.model, request, response);
+		}
+		size.bytes = response.getContentAsByteArray().length;
+		return response;
+	}
+
+	private FilterChain renderChain(Page page) {
+		return (request, response) -> {
+			try {
+				renderer.render(page.viewName, page.model, (HttpServletRequest) request,
+						(HttpServletResponse) response);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		};
+	}
+}
@@ -0,0 +1,145 @@
+package com.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Concurrent transfers in both directions over a small fixed set of accounts,
+// so threads keep colliding on the same rows. Reports transfers/sec; at the
+// end of the trial the money is checked: sum(balance) over the set must be
+// unchanged, the TRANSFER_OUT and TRANSFER_IN lines written during the run
+// must match, and every balance must equal its start plus its ledger lines.
+// A violation fails the run.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class TransferConservationBenchmark {
+
+	@Param("20")
+	public int accountCount;
+
+	@Param("0")
+	public int dbLatencyMillis;
+
+	private BenchmarkDatabase database;
+	private Map<Integer, BigDecimal> startBalances;
+	private int lastTransactionId;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		database = new BenchmarkDatabase(accountCount, 1, 1_000);
+		startBalances = balances();
+		lastTransactionId = database.getJdbcTemplate()
+				.queryForObject("SELECT COALESCE(MAX(transaction_id), 0) FROM transaction", Integer.class);
+		database.setConnectionLatencyMillis(dbLatencyMillis);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		try {
+			verify();
+		} finally {
+			database.close();
+		}
+	}
+
+	@Benchmark
+	public int transfer() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int fromAccountId = 1 + random.nextInt(accountCount);
+		int toAccountId = 1 + (fromAccountId + random.nextInt(accountCount - 1)) % accountCount;
+		// 0.01 to 10.00, so lost or doubled cents show up in the totals
+		BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(1_000), 2);
+		database.getBankingService()
+				.transfer(fromAccountId, toAccountId, amount);
+		return toAccountId;
+	}
+
+	private void verify() {
+		Map<Integer, BigDecimal> endBalances = balances();
+		BigDecimal startTotal = total(startBalances);
+		BigDecimal endTotal = total(endBalances);
+
+		Map<Integer, BigDecimal> ledgerDeltas = new HashMap<>();
+		BigDecimal transferredOut = BigDecimal.ZERO;
+		BigDecimal transferredIn = BigDecimal.ZERO;
+		long transfers = 0;
+		List<Map<String, Object>> lines = database.getJdbcTemplate()
+				.queryForList("SELECT account_id, transaction_type, amount FROM transaction WHERE transaction_id > ?",
+						lastTransactionId);
+		for (Map<String, Object> line : lines) {
+			int accountId = ((Number) line.get("account_id")).intValue();
+			BigDecimal amount = (BigDecimal) line.get("amount");
+			String type = (String) line.get("transaction_type");
+			if ("TRANSFER_OUT".equals(type)) {
+				transferredOut = transferredOut.add(amount);
+				transfers++;
+				ledgerDeltas.merge(accountId, amount.negate(), BigDecimal::add);
+			} else if ("TRANSFER_IN".equals(type)) {
+				transferredIn = transferredIn.add(amount);
+				ledgerDeltas.merge(accountId, amount, BigDecimal::add);
+			} else {
+				throw new IllegalStateException("unexpected ledger line during the run: " + type);
+			}
+		}
+
+		System.out.println();
+		System.out.println("transfers=" + transfers + " moved=" + transferredOut + " total before=" + startTotal
+				+ " after=" + endTotal);
+
+		if (startTotal.compareTo(endTotal) != 0) {
+			throw new IllegalStateException("money not conserved: " + startTotal + " before, " + endTotal + " after");
+		}
+		if (transferredOut.compareTo(transferredIn) != 0) {
+			throw new IllegalStateException(
+					"ledger out of balance: " + transferredOut + " out, " + transferredIn + " in");
+		}
+		for (Map.Entry<Integer, BigDecimal> entry : startBalances.entrySet()) {
+			BigDecimal expected = entry.getValue()
+					.add(ledgerDeltas.getOrDefault(entry.getKey(), BigDecimal.ZERO));
+			BigDecimal actual = endBalances.get(entry.getKey());
+			if (expected.compareTo(actual) != 0) {
+				throw new IllegalStateException("account " + entry.getKey() + " has balance " + actual
+						+ " but its ledger says " + expected);
+			}
+		}
+	}
+
+	private Map<Integer, BigDecimal> balances() {
+		Map<Integer, BigDecimal> balances = new HashMap<>();
+		database.getJdbcTemplate()
+				.query("SELECT account_id, balance FROM account",
+						rs -> {
+							balances.put(rs.getInt("account_id"), rs.getBigDecimal("balance"));
+						});
+		return balances;
+	}
+
+	private static BigDecimal total(Map<Integer, BigDecimal> balances) {
+		return balances.values()
+				.stream()
+				.reduce(BigDecimal.ZERO, BigDecimal::add);
+	}
+}
@@ -0,0 +1,87 @@
+CREATE TABLE customer (
+	customer_id INT AUTO_INCREMENT PRIMARY KEY,
+	first_name VARCHAR(50),
+	last_name VARCHAR(50),
+	email VARCHAR(100),
+	phone VARCHAR(20),
+	created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_customer_email ON customer (email);
+
+CREATE TABLE account (
+	account_id INT AUTO_INCREMENT PRIMARY KEY,
+	customer_id INT NOT NULL,
+	account_number VARCHAR(20) NOT NULL UNIQUE,
+	balance DECIMAL(15, 2) NOT NULL,
+	account_type VARCHAR(20),
+	created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+	FOREIGN KEY (customer_id) REFERENCES customer (customer_id)
+);
+
+CREATE INDEX idx_account_customer ON account (customer_id);
+
+CREATE TABLE transaction (
+	transaction_id INT AUTO_INCREMENT PRIMARY KEY,
+	account_id INT NOT NULL,
+	transaction_type VARCHAR(20),
+	amount DECIMAL(15, 2),
+	description VARCHAR(255),
+	transaction_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+	balance_after DECIMAL(15, 2),
+	FOREIGN KEY (account_id) REFERENCES account (account_id)
+);
+
+CREATE INDEX idx_transaction_account_date ON transaction (account_id, transaction_date, transaction_id);
+
+CREATE TABLE user (
+	user_id INT AUTO_INCREMENT PRIMARY KEY,
+	username VARCHAR(50) NOT NULL UNIQUE,
+	password VARCHAR(255) NOT NULL,
+	email VARCHAR(100),
+	role VARCHAR(20),
+	customer_id INT,
+	active BOOLEAN DEFAULT TRUE,
+	created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE interest_accrual_checkpoint (
+	accrual_date DATE NOT NULL,
+	first_account_id INT NOT NULL,
+	last_account_id INT NOT NULL,
+	accounts INT NOT NULL,
+	interest DECIMAL(15, 2) NOT NULL,
+	completed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+	PRIMARY KEY (accrual_date, first_account_id)
+);
+
+CREATE TABLE reconciliation_checkpoint (
+	account_id INT PRIMARY KEY,
+	last_transaction_id INT NOT NULL,
+	last_balance_after DECIMAL(15, 2) NOT NULL,
+	verified_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE account_number_sequence (
+	id INT PRIMARY KEY,
+	next_value BIGINT NOT NULL
+);
+
+CREATE TABLE payroll_batch_chunk (
+	batch_id VARCHAR(64) NOT NULL,
+	first_item INT NOT NULL,
+	last_item INT NOT NULL,
+	from_account_id INT NOT NULL,
+	amount DECIMAL(15, 2) NOT NULL,
+	completed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+	PRIMARY KEY (batch_id, first_item)
+);
+
+CREATE TABLE idempotency_key (
+	idempotency_key VARCHAR(100) PRIMARY KEY,
+	fingerprint VARCHAR(200) NOT NULL,
+	response TEXT,
+	expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotency_key_expires ON idempotency_key (expires_at);
@@ -0,0 +1,58 @@
+package com.banking.batch;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Splits [minAccountId, maxAccountId] into windows aligned to rangeSize and
+// hands them out in ascending order to a fixed pool of worker threads.
+// Aligned windows keep the same boundaries from run to run, so per-range
+// checkpoints stay valid across restarts.
+final class AccountRanges {
+
+	interface RangeTask {
+
+		// process account ids in [firstAccountId, endAccountId)
+		void run(int firstAccountId, int endAccountId) throws InterruptedException;
+	}
+
+	private AccountRanges() {
+	}
+
+	// returns once every range has been handed out and finished, or the caller is interrupted
+	static void forEach(int minAccountId, int maxAccountId, int rangeSize, int workers, String threadName,
+			RangeTask task) {
+		AtomicInteger nextRange = new AtomicInteger(minAccountId / rangeSize * rangeSize);
+		AtomicInteger threadNumber = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, threadName + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		for (int i = 0; i < workers; i++) {
+			executor.execute(() -> {
+				int first;
+				while (!Thread.currentThread()
+						.isInterrupted() && (first = nextRange.getAndAdd(rangeSize)) <= maxAccountId) {
+					try {
+						task.run(first, first + rangeSize);
+					} catch (InterruptedException e) {
+						Thread.currentThread()
+								.interrupt();
+					}
+				}
+			});
+		}
+
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread()
+					.interrupt();
+		}
+	}
+}
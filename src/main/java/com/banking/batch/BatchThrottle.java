@@ -0,0 +1,69 @@
+package com.banking.batch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+// Paces batch workers so they leave room for online requests: a shared
+// rows-per-second budget, and a pause whenever request threads are already
+// waiting for a pooled connection.
+public class BatchThrottle {
+
+	private long maxRowsPerSecond;
+	private HikariDataSource dataSource;
+	private long poolPressureBackoffMillis = 50;
+
+	// earliest time the next chunk may start, shared by all workers
+	private final AtomicLong nextStartNanos = new AtomicLong(System.nanoTime());
+	private final AtomicLong pausedMillis = new AtomicLong();
+
+	// 0 means no rate limit
+	public void setMaxRowsPerSecond(long maxRowsPerSecond) {
+		this.maxRowsPerSecond = maxRowsPerSecond;
+	}
+
+	// optional; without it only the rate limit applies
+	public void setDataSource(HikariDataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public void setPoolPressureBackoffMillis(long poolPressureBackoffMillis) {
+		this.poolPressureBackoffMillis = poolPressureBackoffMillis;
+	}
+
+	// block until a chunk of the given size may run
+	public void acquire(int rows) throws InterruptedException {
+		while (poolUnderPressure()) {
+			Thread.sleep(poolPressureBackoffMillis);
+			pausedMillis.addAndGet(poolPressureBackoffMillis);
+		}
+
+		if (maxRowsPerSecond <= 0 || rows <= 0) {
+			return;
+		}
+		long cost = TimeUnit.SECONDS.toNanos(1) * rows / maxRowsPerSecond;
+		long now = System.nanoTime();
+		// never bank more than one second of idle budget
+		long start = nextStartNanos.getAndAccumulate(cost,
+				(next, c) -> Math.max(next, now - TimeUnit.SECONDS.toNanos(1)) + c);
+		long wait = Math.max(start, now - TimeUnit.SECONDS.toNanos(1)) - now;
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+			pausedMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(wait));
+		}
+	}
+
+	public long getPausedMillis() {
+		return pausedMillis.get();
+	}
+
+	private boolean poolUnderPressure() {
+		if (dataSource == null) {
+			return false;
+		}
+		HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+		return pool != null && pool.getThreadsAwaitingConnection() > 0;
+	}
+}
@@ -0,0 +1,264 @@
+package com.banking.batch;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.dao.AccountDao;
+import com.banking.dao.InterestAccrualDao;
+import com.banking.dao.TransactionDao;
+import com.banking.model.Account;
+import com.banking.model.InterestAccrualRun;
+import com.banking.model.Transaction;
+
+// Daily interest accrual. The account table is cut into fixed account-id
+// ranges (see AccountRanges) handled by a pool of workers. Each range is one
+// short transaction: lock its interest-bearing accounts, credit them with one
+// batched UPDATE, post the INTEREST lines with one batched INSERT and record a
+// checkpoint row. A rerun for the same date skips checkpointed ranges.
+public class InterestAccrualEngine {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(InterestAccrualEngine.class);
+
+	private static final String TRANSACTION_TYPE = "INTEREST";
+	private static final int MAX_LOCK_RETRIES = 3;
+
+	private AccountDao accountDao;
+	private TransactionDao transactionDao;
+	private InterestAccrualDao interestAccrualDao;
+	private TransactionTemplate transactionTemplate;
+	private BatchThrottle throttle = new BatchThrottle();
+
+	// annual rate per account type, e.g. SAVINGS -> 0.035; types not listed earn nothing
+	private Map<String, BigDecimal> annualRates = new HashMap<>();
+	private int rangeSize = 500;
+	private int workers = 4;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	private volatile InterestAccrualRun lastRun;
+
+	public void setAccountDao(AccountDao accountDao) {
+		this.accountDao = accountDao;
+	}
+
+	public void setTransactionDao(TransactionDao transactionDao) {
+		this.transactionDao = transactionDao;
+	}
+
+	public void setInterestAccrualDao(InterestAccrualDao interestAccrualDao) {
+		this.interestAccrualDao = interestAccrualDao;
+	}
+
+	public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	public void setThrottle(BatchThrottle throttle) {
+		this.throttle = throttle;
+	}
+
+	public void setAnnualRates(Map<String, BigDecimal> annualRates) {
+		Map<String, BigDecimal> rates = new LinkedHashMap<>();
+		annualRates.forEach((type, rate) -> {
+			if (rate.signum() > 0) {
+				rates.put(type, rate);
+			}
+		});
+		this.annualRates = rates;
+	}
+
+	public void setRangeSize(int rangeSize) {
+		this.rangeSize = rangeSize;
+	}
+
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+
+	// scheduled entry point: accrue for the day that just ended
+	public void accrueYesterday() {
+		try {
+			run(LocalDate.now()
+					.minusDays(1));
+		} catch (IllegalStateException e) {
+			LOGGER.warn("interest accrual skipped: {}", e.getMessage());
+		}
+	}
+
+	// accrue one day of interest; safe to call again for the same date after a failure
+	public InterestAccrualRun run(LocalDate accrualDate) {
+		if (!running.compareAndSet(false, true)) {
+			throw new IllegalStateException("interest accrual already running");
+		}
+		try {
+			return execute(accrualDate);
+		} finally {
+			running.set(false);
+		}
+	}
+
+	// start a run on its own thread; false if one is already in progress
+	public boolean runInBackground(LocalDate accrualDate) {
+		if (!running.compareAndSet(false, true)) {
+			return false;
+		}
+		Thread thread = new Thread(() -> {
+			try {
+				execute(accrualDate);
+			} catch (RuntimeException e) {
+				LOGGER.error("interest accrual failed: date={}", accrualDate, e);
+			} finally {
+				running.set(false);
+			}
+		}, "interest-accrual-coordinator");
+		thread.setDaemon(true);
+		thread.start();
+		return true;
+	}
+
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	public InterestAccrualRun getLastRun() {
+		return lastRun;
+	}
+
+	private InterestAccrualRun execute(LocalDate accrualDate) {
+		long started = System.currentTimeMillis();
+		Integer minId = accountDao.getMinAccountId();
+		Integer maxId = accountDao.getMaxAccountId();
+		Set<Integer> completed = interestAccrualDao.getCompletedRanges(accrualDate);
+
+		LOGGER.info("interest accrual started: date={}, accountIds={}..{}, completedRanges={}, workers={}",
+				accrualDate,
+				minId,
+				maxId,
+				completed.size(),
+				workers);
+
+		AtomicLong processed = new AtomicLong();
+		AtomicLong skipped = new AtomicLong();
+		AtomicLong failed = new AtomicLong();
+		AtomicLong credited = new AtomicLong();
+		LongAdder interestCents = new LongAdder();
+
+		if (minId != null && !annualRates.isEmpty()) {
+			AccountRanges.forEach(minId, maxId, rangeSize, workers, "interest-accrual", (first, end) -> {
+				if (completed.contains(first)) {
+					skipped.incrementAndGet();
+					return;
+				}
+				try {
+					throttle.acquire(rangeSize);
+					List<Transaction> posted = accrueRange(accrualDate, first, end);
+					for (Transaction line : posted) {
+						interestCents.add(line.getAmount()
+								.movePointRight(2)
+								.longValueExact());
+					}
+					credited.addAndGet(posted.size());
+					processed.incrementAndGet();
+				} catch (DuplicateKeyException e) {
+					// another run finished this range first
+					skipped.incrementAndGet();
+				} catch (RuntimeException e) {
+					failed.incrementAndGet();
+					LOGGER.error("interest accrual range failed: date={}, firstAccountId={}, error={}",
+							accrualDate,
+							first,
+							e.getMessage());
+				}
+			});
+		}
+
+		InterestAccrualRun result = InterestAccrualRun.builder()
+				.accrualDate(accrualDate)
+				.rangesProcessed(processed.get())
+				.rangesSkipped(skipped.get())
+				.rangesFailed(failed.get())
+				.accountsCredited(credited.get())
+				.totalInterest(BigDecimal.valueOf(interestCents.sum(), 2))
+				.elapsedMillis(System.currentTimeMillis() - started)
+				.build();
+		lastRun = result;
+
+		LOGGER.info("interest accrual finished: {}", result);
+		return result;
+	}
+
+	// credit one account-id range in its own transaction; returns the INTEREST lines posted
+	private List<Transaction> accrueRange(LocalDate accrualDate, int firstAccountId, int endAccountId) {
+		BigDecimal daysInYear = BigDecimal.valueOf(accrualDate.lengthOfYear());
+
+		for (int attempt = 1;; attempt++) {
+			try {
+				return transactionTemplate.execute(status -> {
+					List<Account> accounts = accountDao.lockAccountsInRange(firstAccountId, endAccountId,
+							annualRates.keySet());
+
+					Map<Integer, BigDecimal> deltas = new LinkedHashMap<>();
+					List<Transaction> lines = new ArrayList<>();
+					BigDecimal total = BigDecimal.ZERO;
+					for (Account account : accounts) {
+						BigDecimal interest = account.getBalance()
+								.multiply(annualRates.get(account.getAccountType()))
+								.divide(daysInYear, 2, RoundingMode.HALF_EVEN);
+						if (interest.signum() <= 0) {
+							continue;
+						}
+						deltas.put(account.getAccountId(), interest);
+						lines.add(Transaction.builder()
+								.accountId(account.getAccountId())
+								.transactionType(TRANSACTION_TYPE)
+								.amount(interest)
+								.description("Interest for " + accrualDate)
+								.balanceAfter(account.getBalance()
+										.add(interest))
+								.build());
+						total = total.add(interest);
+					}
+
+					if (!deltas.isEmpty()) {
+						accountDao.applyBalanceDeltas(deltas);
+						transactionDao.createTransactions(lines);
+					}
+					interestAccrualDao.markRangeCompleted(accrualDate, firstAccountId, endAccountId - 1, lines.size(),
+							total);
+					return lines;
+				});
+			} catch (PessimisticLockingFailureException e) {
+				if (attempt >= MAX_LOCK_RETRIES) {
+					throw e;
+				}
+				LOGGER.warn("lock conflict, retrying interest range: firstAccountId={}, attempt={}",
+						firstAccountId,
+						attempt);
+				try {
+					Thread.sleep(ThreadLocalRandom.current()
+							.nextLong(5, 20L * attempt));
+				} catch (InterruptedException ie) {
+					Thread.currentThread()
+							.interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+}
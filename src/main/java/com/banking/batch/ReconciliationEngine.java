@@ -0,0 +1,298 @@
+package com.banking.batch;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.dao.AccountDao;
+import com.banking.dao.ReconciliationDao;
+import com.banking.model.Account;
+import com.banking.model.ReconciliationCheckpoint;
+import com.banking.model.ReconciliationDiscrepancy;
+import com.banking.model.ReconciliationReport;
+import com.banking.model.Transaction;
+
+// Checks the ledger against itself and against account.balance:
+// every line's balance_after must equal the previous line's balance_after
+// plus or minus its amount, and the newest balance_after must equal the
+// account balance. Each account remembers the last verified transaction_id,
+// so a normal run only reads lines posted since the previous run; a full run
+// re-verifies everything. Account-id ranges are checked in parallel, each in
+// one short transaction so the account rows and ledger lines come from the
+// same snapshot.
+public class ReconciliationEngine {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReconciliationEngine.class);
+
+	private static final Set<String> DEBIT_TYPES = new HashSet<>(Arrays.asList("WITHDRAWAL", "TRANSFER_OUT"));
+
+	private AccountDao accountDao;
+	private ReconciliationDao reconciliationDao;
+	private TransactionTemplate transactionTemplate;
+	private BatchThrottle throttle = new BatchThrottle();
+
+	private int rangeSize = 500;
+	private int workers = 4;
+	private int reportLimit = 1_000;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	private volatile ReconciliationReport lastReport;
+
+	public void setAccountDao(AccountDao accountDao) {
+		this.accountDao = accountDao;
+	}
+
+	public void setReconciliationDao(ReconciliationDao reconciliationDao) {
+		this.reconciliationDao = reconciliationDao;
+	}
+
+	public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	public void setThrottle(BatchThrottle throttle) {
+		this.throttle = throttle;
+	}
+
+	public void setRangeSize(int rangeSize) {
+		this.rangeSize = rangeSize;
+	}
+
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+
+	public void setReportLimit(int reportLimit) {
+		this.reportLimit = reportLimit;
+	}
+
+	// scheduled entry point: verify what was posted since the last run
+	public void reconcileIncremental() {
+		try {
+			run(false);
+		} catch (IllegalStateException e) {
+			LOGGER.warn("reconciliation skipped: {}", e.getMessage());
+		}
+	}
+
+	public ReconciliationReport run(boolean full) {
+		if (!running.compareAndSet(false, true)) {
+			throw new IllegalStateException("reconciliation already running");
+		}
+		try {
+			return execute(full);
+		} finally {
+			running.set(false);
+		}
+	}
+
+	// start a run on its own thread; false if one is already in progress
+	public boolean runInBackground(boolean full) {
+		if (!running.compareAndSet(false, true)) {
+			return false;
+		}
+		Thread thread = new Thread(() -> {
+			try {
+				execute(full);
+			} catch (RuntimeException e) {
+				LOGGER.error("reconciliation failed: full={}", full, e);
+			} finally {
+				running.set(false);
+			}
+		}, "reconciliation-coordinator");
+		thread.setDaemon(true);
+		thread.start();
+		return true;
+	}
+
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	public ReconciliationReport getLastReport() {
+		return lastReport;
+	}
+
+	private ReconciliationReport execute(boolean full) {
+		long started = System.currentTimeMillis();
+		Integer minId = accountDao.getMinAccountId();
+		Integer maxId = accountDao.getMaxAccountId();
+
+		LOGGER.info("reconciliation started: full={}, accountIds={}..{}, workers={}", full, minId, maxId, workers);
+
+		AtomicLong processed = new AtomicLong();
+		AtomicLong failed = new AtomicLong();
+		AtomicLong accountsChecked = new AtomicLong();
+		AtomicLong transactionsChecked = new AtomicLong();
+		AtomicLong discrepancyCount = new AtomicLong();
+		List<ReconciliationDiscrepancy> discrepancies = new ArrayList<>();
+
+		if (minId != null) {
+			AccountRanges.forEach(minId, maxId, rangeSize, workers, "reconciliation", (first, end) -> {
+				try {
+					throttle.acquire(rangeSize);
+					RangeResult result = transactionTemplate.execute(status -> reconcileRange(first, end, full));
+					accountsChecked.addAndGet(result.accounts);
+					transactionsChecked.addAndGet(result.transactions);
+					for (ReconciliationDiscrepancy discrepancy : result.discrepancies) {
+						LOGGER.warn("reconciliation discrepancy: {}", discrepancy);
+						discrepancyCount.incrementAndGet();
+						synchronized (discrepancies) {
+							if (discrepancies.size() < reportLimit) {
+								discrepancies.add(discrepancy);
+							}
+						}
+					}
+					processed.incrementAndGet();
+				} catch (RuntimeException e) {
+					failed.incrementAndGet();
+					LOGGER.error("reconciliation range failed: firstAccountId={}, error={}", first, e.getMessage());
+				}
+			});
+		}
+
+		ReconciliationReport report = ReconciliationReport.builder()
+				.fullVerify(full)
+				.rangesProcessed(processed.get())
+				.rangesFailed(failed.get())
+				.accountsChecked(accountsChecked.get())
+				.transactionsChecked(transactionsChecked.get())
+				.discrepancyCount(discrepancyCount.get())
+				.discrepancies(new ArrayList<>(discrepancies))
+				.elapsedMillis(System.currentTimeMillis() - started)
+				.build();
+		lastReport = report;
+
+		LOGGER.info("reconciliation finished: {}", report);
+		return report;
+	}
+
+	private RangeResult reconcileRange(int firstAccountId, int endAccountId, boolean full) {
+		List<Account> accounts = accountDao.getAccountsInRange(firstAccountId, endAccountId);
+		Map<Integer, ReconciliationCheckpoint> checkpoints = reconciliationDao.getCheckpoints(firstAccountId,
+				endAccountId);
+		RangeResult result = new RangeResult();
+		result.accounts = accounts.size();
+
+		// walk the new ledger lines, one account after the other
+		Map<Integer, AccountState> states = new HashMap<>();
+		reconciliationDao.forEachUnverifiedTransaction(firstAccountId, endAccountId, full, line -> {
+			states.computeIfAbsent(line.getAccountId(),
+					accountId -> new AccountState(accountId, full ? null : checkpoints.get(accountId)))
+					.check(line, result.discrepancies);
+			result.transactions++;
+		});
+
+		List<ReconciliationCheckpoint> moved = new ArrayList<>();
+		for (Account account : accounts) {
+			AccountState state = states.get(account.getAccountId());
+			ReconciliationCheckpoint checkpoint = checkpoints.get(account.getAccountId());
+			BigDecimal latest;
+			if (state != null) {
+				latest = state.balance;
+				if (state.lastGoodTransactionId != null && (checkpoint == null
+						|| state.lastGoodTransactionId > checkpoint.getLastTransactionId())) {
+					moved.add(ReconciliationCheckpoint.builder()
+							.accountId(account.getAccountId())
+							.lastTransactionId(state.lastGoodTransactionId)
+							.lastBalanceAfter(state.lastGoodBalance)
+							.build());
+				}
+			} else if (checkpoint != null) {
+				latest = checkpoint.getLastBalanceAfter();
+			} else {
+				latest = BigDecimal.ZERO;
+			}
+
+			if (account.getBalance()
+					.compareTo(latest) != 0) {
+				result.discrepancies.add(ReconciliationDiscrepancy.builder()
+						.kind(ReconciliationDiscrepancy.BALANCE_MISMATCH)
+						.accountId(account.getAccountId())
+						.transactionId(state != null ? state.lastTransactionId
+								: checkpoint != null ? checkpoint.getLastTransactionId() : null)
+						.expected(latest)
+						.actual(account.getBalance())
+						.build());
+			}
+		}
+
+		if (!moved.isEmpty()) {
+			reconciliationDao.saveCheckpoints(moved);
+		}
+		return result;
+	}
+
+	private static class RangeResult {
+
+		private int accounts;
+		private long transactions;
+		private final List<ReconciliationDiscrepancy> discrepancies = new ArrayList<>();
+	}
+
+	// running check of one account's ledger lines
+	private static class AccountState {
+
+		private final int accountId;
+		// balance after the previous line, as recorded (or as computed when it was missing)
+		private BigDecimal balance;
+		private Integer lastTransactionId;
+		// the checkpoint only moves up to the line before the first problem
+		private Integer lastGoodTransactionId;
+		private BigDecimal lastGoodBalance;
+		private boolean broken;
+
+		private AccountState(int accountId, ReconciliationCheckpoint checkpoint) {
+			this.accountId = accountId;
+			this.balance = checkpoint != null ? checkpoint.getLastBalanceAfter() : BigDecimal.ZERO;
+		}
+
+		private void check(Transaction line, List<ReconciliationDiscrepancy> discrepancies) {
+			BigDecimal amount = line.getAmount() == null ? BigDecimal.ZERO : line.getAmount();
+			BigDecimal expected = DEBIT_TYPES.contains(line.getTransactionType()) ? balance.subtract(amount)
+					: balance.add(amount);
+			BigDecimal actual = line.getBalanceAfter();
+
+			if (actual == null) {
+				broken = true;
+				discrepancies.add(discrepancy(ReconciliationDiscrepancy.MISSING_BALANCE_AFTER, line, expected, null));
+				balance = expected;
+			} else {
+				if (actual.compareTo(expected) != 0) {
+					broken = true;
+					discrepancies.add(discrepancy(ReconciliationDiscrepancy.BROKEN_CHAIN, line, expected, actual));
+				}
+				// carry on from the recorded value so one bad line is reported once
+				balance = actual;
+			}
+
+			lastTransactionId = line.getTransactionId();
+			if (!broken) {
+				lastGoodTransactionId = line.getTransactionId();
+				lastGoodBalance = actual;
+			}
+		}
+
+		private ReconciliationDiscrepancy discrepancy(String kind, Transaction line, BigDecimal expected,
+				BigDecimal actual) {
+			return ReconciliationDiscrepancy.builder()
+					.kind(kind)
+					.accountId(accountId)
+					.transactionId(line.getTransactionId())
+					.expected(expected)
+					.actual(actual)
+					.build();
+		}
+	}
+}
@@ -0,0 +1,331 @@
+package com.banking.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.banking.model.Account;
+import com.banking.model.AccountRequest;
+import com.banking.model.Customer;
+import com.banking.model.PostingRequest;
+import com.banking.model.SessionPrincipal;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionPage;
+import com.banking.model.TransferRequest;
+import com.banking.service.BankingService;
+import com.banking.service.IdempotencyStore;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+// JSON API for the mobile app and partner integrations, on the same
+// BankingService as the pages. Responses are written field by field with a
+// JsonGenerator straight to the response, and nothing here loads the account
+// lists the HTML forms need for their dropdowns. Account reads carry an ETag,
+// so polling an unchanged account costs a 304 without a body.
+// Callers authenticate as for the pages (session or token); the interceptor
+// answers 401 here instead of redirecting to the login page.
+@Controller
+@RequestMapping("/api/v1")
+public class ApiController {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ApiController.class);
+
+	private static final String JSON = "application/json";
+
+	private final JsonFactory jsonFactory = new JsonFactory()
+			.enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+
+	private BankingService bankingService;
+	private IdempotencyStore idempotencyStore;
+
+	public void setBankingService(BankingService bankingService) {
+		this.bankingService = bankingService;
+	}
+
+	public void setIdempotencyStore(IdempotencyStore idempotencyStore) {
+		this.idempotencyStore = idempotencyStore;
+	}
+
+	// writes one JSON value
+	private interface JsonBody {
+
+		void write(JsonGenerator out) throws IOException;
+	}
+
+	// the customer's accounts
+	@GetMapping("/accounts")
+	public void accounts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		Integer customerId = SessionPrincipal.of(request)
+				.getCustomerId();
+		LOGGER.info("request: api accounts - customerId={}", customerId);
+		List<Account> accounts = customerId == null ? Collections.emptyList()
+				: bankingService.getCustomerAccounts(customerId);
+		writeConditional(request, response, out -> {
+			out.writeStartArray();
+			for (Account account : accounts) {
+				writeAccount(out, account);
+			}
+			out.writeEndArray();
+		});
+	}
+
+	@GetMapping("/accounts/{accountId}")
+	public void account(@PathVariable int accountId, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		LOGGER.info("request: api account - accountId={}", accountId);
+		if (!ownsAccount(request, accountId)) {
+			writeError(response, HttpServletResponse.SC_NOT_FOUND, "account not found");
+			return;
+		}
+		Account account = bankingService.getAccountDetails(accountId);
+		writeConditional(request, response, out -> writeAccount(out, account));
+	}
+
+	@PostMapping("/accounts")
+	public void createAccount(@RequestBody AccountRequest body, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		LOGGER.info("request: api create account - customerId={}, initialDeposit={}, accountType={}",
+				principal.getCustomerId(), body.getInitialDeposit(), body.getAccountType());
+		if (principal.getCustomerId() == null) {
+			throw new IllegalArgumentException("only customers can open accounts");
+		}
+		if (body.getInitialDeposit() == null) {
+			throw new IllegalArgumentException("initialDeposit is required");
+		}
+
+		Customer customer = bankingService.getCustomerById(principal.getCustomerId());
+		Account account = bankingService.createAccount(customer.getFirstName(), customer.getLastName(),
+				customer.getEmail(), customer.getPhone(), body.getInitialDeposit(), body.getAccountType());
+		SessionPrincipal.store(request, principal.withAccount(account.getAccountId()));
+
+		response.setStatus(HttpServletResponse.SC_CREATED);
+		response.setHeader("Location", request.getContextPath() + "/api/v1/accounts/" + account.getAccountId());
+		write(response, out -> writeAccount(out, account));
+	}
+
+	// one page of the account's ledger, newest first; follow nextCursor for older lines
+	@GetMapping("/accounts/{accountId}/transactions")
+	public void transactions(@PathVariable int accountId,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "" + BankingService.DEFAULT_HISTORY_PAGE_SIZE) int pageSize,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		LOGGER.info("request: api transactions - accountId={}, pageSize={}", accountId, pageSize);
+		if (!ownsAccount(request, accountId)) {
+			writeError(response, HttpServletResponse.SC_NOT_FOUND, "account not found");
+			return;
+		}
+		TransactionPage page = bankingService.getTransactionHistory(accountId, cursor, pageSize);
+		write(response, out -> {
+			out.writeStartObject();
+			out.writeArrayFieldStart("transactions");
+			for (Transaction transaction : page.getTransactions()) {
+				writeTransaction(out, transaction);
+			}
+			out.writeEndArray();
+			writeStringIfPresent(out, "nextCursor", page.getNextCursor());
+			writeStringIfPresent(out, "previousCursor", page.getPreviousCursor());
+			out.writeEndObject();
+		});
+	}
+
+	// postings take an Idempotency-Key header; a retry with the same key gets the first result
+	@PostMapping("/accounts/{accountId}/deposits")
+	public void deposit(@PathVariable int accountId, @RequestBody PostingRequest body,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		BigDecimal amount = requireAmount(body.getAmount());
+		Integer customerId = SessionPrincipal.of(request)
+				.getCustomerId();
+		LOGGER.info("request: api deposit - accountId={}, amount={}", accountId, amount);
+		Account account = runOnce(customerId, idempotencyKey, "deposit:" + accountId + ":" + amount.toPlainString(),
+				() -> bankingService.deposit(accountId, customerId, amount));
+		write(response, out -> writeAccount(out, account));
+	}
+
+	@PostMapping("/accounts/{accountId}/withdrawals")
+	public void withdraw(@PathVariable int accountId, @RequestBody PostingRequest body,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		BigDecimal amount = requireAmount(body.getAmount());
+		Integer customerId = SessionPrincipal.of(request)
+				.getCustomerId();
+		LOGGER.info("request: api withdraw - accountId={}, amount={}", accountId, amount);
+		Account account = runOnce(customerId, idempotencyKey, "withdraw:" + accountId + ":" + amount.toPlainString(),
+				() -> bankingService.withdraw(accountId, customerId, amount));
+		write(response, out -> writeAccount(out, account));
+	}
+
+	// answers with the source account after the transfer
+	@PostMapping("/transfers")
+	public void transfer(@RequestBody TransferRequest body,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		if (body.getFromAccountId() == null || body.getToAccountId() == null) {
+			throw new IllegalArgumentException("fromAccountId and toAccountId are required");
+		}
+		int fromAccountId = body.getFromAccountId();
+		int toAccountId = body.getToAccountId();
+		BigDecimal amount = requireAmount(body.getAmount());
+		LOGGER.info("request: api transfer - fromAccountId={}, toAccountId={}, amount={}", fromAccountId,
+				toAccountId, amount);
+		Account account = runOnce(SessionPrincipal.of(request)
+				.getCustomerId(), idempotencyKey,
+				"transfer:" + fromAccountId + ":" + toAccountId + ":" + amount.toPlainString(), () -> {
+					if (!ownsAccount(request, fromAccountId)) {
+						throw new IllegalArgumentException("unauthorized access to source account");
+					}
+					return bankingService.transfer(fromAccountId, toAccountId, amount);
+				});
+		write(response, out -> writeAccount(out, account));
+	}
+
+	@ExceptionHandler({ IllegalArgumentException.class, HttpMessageNotReadableException.class })
+	public void badRequest(Exception e, HttpServletResponse response) throws IOException {
+		LOGGER.warn("response: api request rejected - {}", e.getMessage());
+		writeError(response, HttpServletResponse.SC_BAD_REQUEST, e instanceof HttpMessageNotReadableException
+				? "malformed request body" : e.getMessage());
+	}
+
+	@ExceptionHandler(EmptyResultDataAccessException.class)
+	public void notFound(HttpServletResponse response) throws IOException {
+		writeError(response, HttpServletResponse.SC_NOT_FOUND, "account not found");
+	}
+
+	// same check as BankingController: the principal first, the database only on a miss
+	private boolean ownsAccount(HttpServletRequest request, int accountId) {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		if (principal == null || principal.getCustomerId() == null) {
+			return false;
+		}
+		if (principal.ownsAccount(accountId)) {
+			return true;
+		}
+		List<Integer> accountIds = bankingService.getCustomerAccountIds(principal.getCustomerId());
+		if (!accountIds.contains(accountId)) {
+			return false;
+		}
+		SessionPrincipal.store(request, principal.withAccounts(accountIds));
+		return true;
+	}
+
+	// keys are scoped like the form posts, so a key is shared between the pages and the API
+	private Account runOnce(Integer customerId, String idempotencyKey, String fingerprint,
+			Supplier<Account> posting) {
+		if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+			return posting.get();
+		}
+		return idempotencyStore.execute("customer-" + customerId, idempotencyKey, fingerprint, Account.class,
+				posting);
+	}
+
+	private static BigDecimal requireAmount(BigDecimal amount) {
+		if (amount == null) {
+			throw new IllegalArgumentException("amount is required");
+		}
+		return amount;
+	}
+
+	private void write(HttpServletResponse response, JsonBody body) throws IOException {
+		response.setContentType(JSON);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		writeTo(response.getOutputStream(), body);
+	}
+
+	// account reads are small, so the body is rendered first to hash it into
+	// the ETag; a matching If-None-Match gets a 304 and no body
+	private void writeConditional(HttpServletRequest request, HttpServletResponse response, JsonBody body)
+			throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+		writeTo(buffer, body);
+		byte[] bytes = buffer.toByteArray();
+
+		String etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+		response.setHeader("ETag", etag);
+		response.setHeader("Cache-Control", "private, no-cache");
+		if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+			return;
+		}
+		response.setContentType(JSON);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setContentLength(bytes.length);
+		response.getOutputStream()
+				.write(bytes);
+	}
+
+	private void writeTo(OutputStream stream, JsonBody body) throws IOException {
+		try (JsonGenerator out = jsonFactory.createGenerator(stream, JsonEncoding.UTF8)) {
+			body.write(out);
+		}
+	}
+
+	private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+		response.setStatus(status);
+		write(response, out -> {
+			out.writeStartObject();
+			out.writeStringField("error", message);
+			out.writeEndObject();
+		});
+	}
+
+	private static void writeAccount(JsonGenerator out, Account account) throws IOException {
+		out.writeStartObject();
+		out.writeNumberField("accountId", account.getAccountId());
+		out.writeStringField("accountNumber", account.getAccountNumber());
+		out.writeStringField("accountType", account.getAccountType());
+		out.writeNumberField("balance", account.getBalance());
+		writeDateIfPresent(out, "createdDate", account.getCreatedDate());
+		out.writeEndObject();
+	}
+
+	private static void writeTransaction(JsonGenerator out, Transaction transaction) throws IOException {
+		out.writeStartObject();
+		out.writeNumberField("transactionId", transaction.getTransactionId());
+		out.writeStringField("type", transaction.getTransactionType());
+		out.writeNumberField("amount", transaction.getAmount());
+		out.writeNumberField("balanceAfter", transaction.getBalanceAfter());
+		writeStringIfPresent(out, "description", transaction.getDescription());
+		writeDateIfPresent(out, "date", transaction.getTransactionDate());
+		out.writeEndObject();
+	}
+
+	private static void writeStringIfPresent(JsonGenerator out, String name, String value) throws IOException {
+		if (value != null) {
+			out.writeStringField(name, value);
+		}
+	}
+
+	// ISO-8601 in UTC
+	private static void writeDateIfPresent(JsonGenerator out, String name, Date value) throws IOException {
+		if (value != null) {
+			out.writeStringField(name, value.toInstant()
+					.toString());
+		}
+	}
+}
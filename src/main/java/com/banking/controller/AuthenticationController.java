@@ -1,28 +1,61 @@
 package com.banking.controller;
 
+import com.banking.model.SessionPrincipal;
 import com.banking.model.User;
+import com.banking.service.AuthTokenService;
 import com.banking.service.AuthenticationService;
+import com.banking.service.BankingService;
+import com.banking.service.PasswordHasher;
+import com.banking.service.RegistrationFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+// login, register and the dashboard return a Callable, like the database
+// handlers of BankingController, so they run on the request executor
 @Controller
 public class AuthenticationController {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationController.class);
 
+	private static final int DASHBOARD_RECENT_TRANSACTIONS = 10;
+	private static final int RETRY_AFTER_SECONDS = 1;
+
 	private AuthenticationService authenticationService;
+	private BankingService bankingService;
+	private AuthTokenService authTokenService;
 
 	public void setAuthenticationService(AuthenticationService authenticationService) {
 		this.authenticationService = authenticationService;
 	}
 
+	public void setBankingService(BankingService bankingService) {
+		this.bankingService = bankingService;
+	}
+
+	public void setAuthTokenService(AuthTokenService authTokenService) {
+		this.authTokenService = authTokenService;
+	}
+
+	private boolean tokenMode() {
+		return authTokenService != null && authTokenService.isEnabled();
+	}
+
 	// show login page
 	@GetMapping("/login")
 	public String showLoginPage() {
@@ -32,37 +65,56 @@ public class AuthenticationController {
 
 	// process login
 	@PostMapping("/login")
-	public String login(@RequestParam String username,
+	public Callable<String> login(@RequestParam String username,
 			@RequestParam String password,
-			HttpSession session,
+			HttpServletRequest request,
+			HttpServletResponse response,
 			Model model) {
-
-		LOGGER.info("request: login attempt - username={}", username);
-
-		try {
-			User user = authenticationService.authenticate(username, password);
-
-			if (user != null) {
-				// Store user i session
-				session.setAttribute("loggedInUser", user);
-				session.setAttribute("userId", user.getUserId());
-				session.setAttribute("username", user.getUsername());
-				session.setAttribute("role", user.getRole());
-				session.setAttribute("customerId", user.getCustomerId());
-
-				LOGGER.info("response: login successful - userId={},role={}", user.getUserId(), user.getRole());
-				return "redirect:/dashboard";
-			} else {
-				model.addAttribute("error", "invalid username or password");
-				LOGGER.info("response: login failed invalid credentials");
+		return () -> {
+			LOGGER.info("request: login attempt - username={}", username);
+
+			try {
+				User user = authenticationService.authenticate(username, password);
+
+				if (user != null) {
+					// keep only a compact principal in the session, never the user row with its password hash
+					List<Integer> accountIds = user.getCustomerId() == null ? Collections.emptyList()
+							: bankingService.getCustomerAccountIds(user.getCustomerId());
+					SessionPrincipal principal = new SessionPrincipal(user.getUserId(), user.getUsername(),
+							user.getRole(), user.getCustomerId(), accountIds);
+					if (tokenMode()) {
+						// stateless: the signed token is the session
+						authTokenService.addTokenCookie(request, response, authTokenService.issue(principal));
+					} else {
+						request.getSession()
+								.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, principal);
+					}
+
+					LOGGER.info("response: login successful - userId={},role={}", user.getUserId(), user.getRole());
+					return "redirect:/dashboard";
+				} else {
+					model.addAttribute("error", "invalid username or password");
+					LOGGER.info("response: login failed invalid credentials");
+					return "login";
+				}
+
+			} catch (PasswordHasher.SaturatedException e) {
+				busy(response, model, e);
+				return "login";
+			} catch (Exception e) {
+				model.addAttribute("error", e.getMessage());
+				LOGGER.error("response: login error - {}", e.getMessage());
 				return "login";
 			}
+		};
+	}
 
-		} catch (Exception e) {
-			model.addAttribute("error", e.getMessage());
-			LOGGER.error("response: login error - {}", e.getMessage());
-			return "login";
-		}
+	// the password hasher is full: answer 503 at once so the client backs off
+	private static void busy(HttpServletResponse response, Model model, PasswordHasher.SaturatedException e) {
+		response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		response.setHeader("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+		model.addAttribute("error", e.getMessage());
+		LOGGER.warn("response: password hasher busy - {}", e.getMessage());
 	}
 
 	// show registeration page
@@ -74,47 +126,60 @@ public class AuthenticationController {
 
 	// process registeration
 	@PostMapping("/register")
-	public String register(@RequestParam String username,
+	public Callable<String> register(@RequestParam String username,
 			@RequestParam String password,
 			@RequestParam String confirmPassword,
 			@RequestParam String email,
 			@RequestParam String firstName,
 			@RequestParam String lastName,
 			@RequestParam String phone,
+			HttpServletResponse response,
 			Model model) {
+		return () -> {
+			LOGGER.info("request: register user - username{}, email={}", username, email);
 
-		LOGGER.info("request: register user - username{}, email={}", username, email);
+			try {
+				// validate password match
+				if (!password.equals(confirmPassword)) {
+					model.addAttribute("error", "password do not match");
+					return "register";
+				}
 
-		try {
-			// validate password match
-			if (!password.equals(confirmPassword)) {
-				model.addAttribute("error", "password do not match");
+				User user = authenticationService.registerUser(username, password, email, firstName, lastName, phone);
+
+				model.addAttribute("success", "registeration successful ! please login.");
+				LOGGER.info("response: registeration successful - userId{}", user.getUserId());
+				return "login";
+			} catch (PasswordHasher.SaturatedException e) {
+				busy(response, model, e);
+				return "register";
+			} catch (IllegalArgumentException e) {
+				model.addAttribute("error", e.getMessage());
+				LOGGER.error("Response: Registration failed - {}", e.getMessage());
+				return "register";
+			} catch (Exception e) {
+				model.addAttribute("error", "Registration failed: " + e.getMessage());
+				LOGGER.error("Response: Registration error - {}", e.getMessage());
 				return "register";
 			}
-
-			User user = authenticationService.registerUser(username, password, email, firstName, lastName, phone);
-
-			model.addAttribute("success", "registeration successful ! please login.");
-			LOGGER.info("response: registeration successful - userId{}", user.getUserId());
-			return "login";
-		} catch (IllegalArgumentException e) {
-			model.addAttribute("error", e.getMessage());
-			LOGGER.error("Response: Registration failed - {}", e.getMessage());
-			return "register";
-		} catch (Exception e) {
-			model.addAttribute("error", "Registration failed: " + e.getMessage());
-			LOGGER.error("Response: Registration error - {}", e.getMessage());
-			return "register";
-		}
+		};
 	}
 
 	// logout
 	@GetMapping("/logout")
-	public String logout(HttpSession session) {
-		String username = (String) session.getAttribute("username");
+	public String logout(HttpServletRequest request, HttpServletResponse response) {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		String username = principal == null ? null : principal.getUsername();
 		LOGGER.info("request: logout - username={}", username);
 
-		session.invalidate();
+		if (tokenMode()) {
+			authTokenService.revoke(authTokenService.tokenFrom(request));
+			authTokenService.clearTokenCookie(request, response);
+		}
+		HttpSession session = request.getSession(false);
+		if (session != null) {
+			session.invalidate();
+		}
 
 		LOGGER.info("response: logout successful");
 		return "redirect:/login?logout=true";
@@ -122,17 +187,66 @@ public class AuthenticationController {
 
 	// dashboard (landing page after login)
 	@GetMapping("/dashboard")
-	public String dashboard(HttpSession session,
+	public Callable<String> dashboard(HttpServletRequest request,
 			Model model) {
-		User user = (User) session.getAttribute("loggedInUser");
+		return () -> {
+			SessionPrincipal principal = SessionPrincipal.of(request);
+
+			if (principal == null) {
+				return "redirect:/login";
+			}
+
+			LOGGER.info("request: dashboard - userId={}", principal.getUserId());
+			model.addAttribute("user", principal);
+
+			Integer customerId = principal.getCustomerId();
+			if (customerId != null) {
+				model.addAttribute("summary", bankingService.getDashboardSummary(customerId, DASHBOARD_RECENT_TRANSACTIONS));
+			}
+			return "dashboard";
+		};
+	}
+
+	// rebuild the registration existence filter from the database (admin only)
+	@PostMapping("/admin/registrationFilter/rebuild")
+	@ResponseBody
+	public ResponseEntity<String> rebuildRegistrationFilter(HttpServletRequest request) {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		if (principal == null || !principal.isAdmin()) {
+			LOGGER.warn("request: registration filter rebuild denied - userId={}", SessionPrincipal.userIdOf(request));
+			return ResponseEntity.status(HttpStatus.FORBIDDEN)
+					.body("forbidden");
+		}
+
+		LOGGER.info("request: rebuild registration filter - userId={}", SessionPrincipal.userIdOf(request));
+		authenticationService.rebuildRegistrationFilter();
+
+		RegistrationFilter filter = authenticationService.getRegistrationFilter();
+		String body = "rebuilt\nexpectedFalsePositiveRate=" + filter.getExpectedFalsePositiveRate()
+				+ "\nobservedFalsePositiveRate=" + filter.getObservedFalsePositiveRate()
+				+ "\ndefinitelyAbsent=" + filter.getDefinitelyAbsentCount()
+				+ "\nconfirmedPresent=" + filter.getConfirmedPresentCount()
+				+ "\nfalsePositives=" + filter.getFalsePositiveCount() + "\n";
+		return ResponseEntity.ok(body);
+	}
 
-		if (user == null) {
-			return "redirect:/login";
+	// drop cached holder details after customer rows were edited in the database
+	// (admin only); without customerId every customer is dropped
+	@PostMapping("/admin/accountCache/evict")
+	@ResponseBody
+	public ResponseEntity<String> evictAccountCache(@RequestParam(required = false) Integer customerId,
+			HttpServletRequest request) {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		if (principal == null || !principal.isAdmin()) {
+			LOGGER.warn("request: account cache eviction denied - userId={}", SessionPrincipal.userIdOf(request));
+			return ResponseEntity.status(HttpStatus.FORBIDDEN)
+					.body("forbidden");
 		}
 
-		LOGGER.info("request: dashboard - userId={}", user.getUserId());
-		model.addAttribute("user", user);
-		return "dashboard";
+		LOGGER.info("request: evict account cache - userId={}, customerId={}", SessionPrincipal.userIdOf(request),
+				customerId);
+		bankingService.evictCachedCustomer(customerId);
+		return ResponseEntity.ok("evicted\n");
 	}
 
 }
\ No newline at end of file
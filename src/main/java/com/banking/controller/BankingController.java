@@ -1,10 +1,13 @@
 package com.banking.controller;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
-import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpServletRequest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,41 +19,99 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import com.banking.model.Account;
 import com.banking.model.Customer;
-import com.banking.model.Transaction;
+import com.banking.model.SessionPrincipal;
+import com.banking.model.TransactionPage;
+import com.banking.service.AccountNumberAllocator;
 import com.banking.service.BankingService;
+import com.banking.service.IdempotencyStore;
 
+// Handlers that read or write the database return a Callable: Spring runs it
+// on the request executor (spring-servlet.xml) and the container thread is
+// free again while it waits on MySQL.
 @Controller
 public class BankingController {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(BankingController.class);
 
 	private BankingService bankingService;
+	private IdempotencyStore idempotencyStore;
 
 	public void setBankingService(BankingService bankingService) {
 		this.bankingService = bankingService;
 	}
 
+	public void setIdempotencyStore(IdempotencyStore idempotencyStore) {
+		this.idempotencyStore = idempotencyStore;
+	}
+
 	// check if user is logged in
-	private boolean isLoggedIn(HttpSession session) {
-		return session != null && session.getAttribute("loggedInUser") != null;
+	private boolean isLoggedIn(HttpServletRequest request) {
+		return SessionPrincipal.of(request) != null;
+	}
+
+	private Integer getCustomerId(HttpServletRequest request) {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		return principal == null ? null : principal.getCustomerId();
 	}
 
 	// get customer accounts only
-	private List<Account> getCustomerAccounts(HttpSession session) {
-		Integer customerId = (Integer) session.getAttribute("customerId");
-		List<Account> allAccounts = bankingService.getAllAccounts();
-
-		return allAccounts.stream()
-				.filter(account -> account.getCustomerId()
-						.equals(customerId))
-				.collect(Collectors.toList());
+	private List<Account> getCustomerAccounts(HttpServletRequest request) {
+		Integer customerId = getCustomerId(request);
+		if (customerId == null) {
+			return Collections.emptyList();
+		}
+		return bankingService.getCustomerAccounts(customerId);
+	}
+
+	// ownership is answered from the session principal. only a miss reaches the
+	// database, to pick up accounts opened since login (e.g. by a bulk upload).
+	private boolean ownsAccount(HttpServletRequest request, int accountId) {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		if (principal == null || principal.getCustomerId() == null) {
+			return false;
+		}
+		if (principal.ownsAccount(accountId)) {
+			return true;
+		}
+		List<Integer> accountIds = bankingService.getCustomerAccountIds(principal.getCustomerId());
+		if (!accountIds.contains(accountId)) {
+			return false;
+		}
+		SessionPrincipal.store(request, principal.withAccounts(accountIds));
+		return true;
+	}
+
+	// a fresh key for a money-moving form, so a double submit runs once
+	private void addIdempotencyKey(Model model) {
+		model.addAttribute("idempotencyKey", UUID.randomUUID()
+				.toString());
+	}
+
+	// an error page resubmits the same key: a failed posting released it, and one
+	// that may have gone through keeps it, so a retry cannot post twice
+	private void addIdempotencyKey(Model model, String idempotencyKey) {
+		if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+			addIdempotencyKey(model);
+		} else {
+			model.addAttribute("idempotencyKey", idempotencyKey);
+		}
+	}
+
+	// run a posting once per client key; a repeat gets the first result without calling the service
+	private Account runOnce(HttpServletRequest request, String idempotencyKey, String fingerprint,
+			Supplier<Account> posting) {
+		if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+			return posting.get();
+		}
+		return idempotencyStore.execute("customer-" + getCustomerId(request), idempotencyKey, fingerprint,
+				Account.class, posting);
 	}
 
 	// home page - redirects to login or dashboard
 	@GetMapping("/")
-	public String home(HttpSession session) {
+	public String home(HttpServletRequest request) {
 		LOGGER.info("request: home page");
-		if (isLoggedIn(session)) {
+		if (isLoggedIn(request)) {
 			return "redirect:/dashboard";
 		}
 		return "redirect:/login";
@@ -58,8 +119,8 @@ public class BankingController {
 
 	// show create account form
 	@GetMapping("/createAccount")
-	public String showCreateAccountForm(HttpSession session) {
-		if (!isLoggedIn(session)) {
+	public String showCreateAccountForm(HttpServletRequest request) {
+		if (!isLoggedIn(request)) {
 			return "redirect:/login";
 		}
 		LOGGER.info("request: show create account form.");
@@ -68,337 +129,339 @@ public class BankingController {
 
 	// process create account
 	@PostMapping("/createAccount")
-	public String createAccount(@RequestParam BigDecimal initialDeposit,
+	public Callable<String> createAccount(@RequestParam BigDecimal initialDeposit,
 			@RequestParam String accountType,
-			HttpSession session,
+			HttpServletRequest request,
 			Model model) {
+		return () -> {
+			if (!isLoggedIn(request)) {
+				return "redirect:/login";
+			}
 
-		if (!isLoggedIn(session)) {
-			return "redirect:/login";
-		}
-
-		Integer customerId = (Integer) session.getAttribute("customerId");
-
-		LOGGER.info("request: create account - customerId{}, initialDeposit={},accountType={}",
-				customerId,
-				initialDeposit,
-				accountType);
-
-		try {
-			// get customer info from service
-			Customer customer = bankingService.getCustomerById(customerId);
+			Integer customerId = getCustomerId(request);
 
-			Account account = bankingService.createAccount(customer.getFirstName(),
-					customer.getLastName(),
-					customer.getEmail(),
-					customer.getPhone(),
+			LOGGER.info("request: create account - customerId{}, initialDeposit={},accountType={}",
+					customerId,
 					initialDeposit,
 					accountType);
 
-			model.addAttribute("account", account);
-			model.addAttribute("message", "Account created successfully !");
-
-			LOGGER.info("response: account created - accountId={}, accountNumber={},balance={}",
-					account.getAccountId(),
-					account.getAccountNumber(),
-					account.getBalance());
-
-			return "account-details";
-
-		} catch (Exception e) {
-			model.addAttribute("error", "error creating account: " + e.getMessage());
-			LOGGER.error("response: error creating account - {}", e.getMessage());
-			return "create-account";
-		}
+			try {
+				// get customer info from service
+				Customer customer = bankingService.getCustomerById(customerId);
+
+				Account account = bankingService.createAccount(customer.getFirstName(),
+						customer.getLastName(),
+						customer.getEmail(),
+						customer.getPhone(),
+						initialDeposit,
+						accountType);
+
+				SessionPrincipal.store(request, SessionPrincipal.of(request)
+						.withAccount(account.getAccountId()));
+				model.addAttribute("account", account);
+				model.addAttribute("message", "Account created successfully !");
+
+				LOGGER.info("response: account created - accountId={}, accountNumber={},balance={}",
+						account.getAccountId(),
+						account.getAccountNumber(),
+						account.getBalance());
+
+				return "account-details";
+
+			} catch (Exception e) {
+				model.addAttribute("error", "error creating account: " + e.getMessage());
+				LOGGER.error("response: error creating account - {}", e.getMessage());
+				return "create-account";
+			}
+		};
 	}
 
 	// show account details form
 	@GetMapping("/viewAccount")
-	public String showViewAccountForm(HttpSession session,
+	public Callable<String> showViewAccountForm(HttpServletRequest request,
 			Model model) {
+		return () -> {
+			if (!isLoggedIn(request)) {
+				return "redirect:/login";
+			}
+			LOGGER.info("request: show view account form.");
+			List<Account> accounts = getCustomerAccounts(request);
+			model.addAttribute("accounts", accounts);
 
-		if (!isLoggedIn(session)) {
-			return "redirect:/login";
-		}
-		LOGGER.info("request: show view account form.");
-		List<Account> accounts = getCustomerAccounts(session);
-		model.addAttribute("accounts", accounts);
-
-		return "view-account";
+			return "view-account";
+		};
 	}
 
 	// view account details
 	@PostMapping("/viewAccount")
-	public String viewAccount(@RequestParam int accountId,
-			HttpSession session,
+	public Callable<String> viewAccount(@RequestParam int accountId,
+			HttpServletRequest request,
 			Model model) {
+		return () -> {
+			if (!isLoggedIn(request)) {
+				return "redirect:/login";
+			}
 
-		if (!isLoggedIn(session)) {
-			return "redirect:/login";
-		}
-
-		LOGGER.info("request: view account details - accountId={}", accountId);
-
-		try {
-			Account account = bankingService.getAccountDetails(accountId);
-
-			// verify account belongs to logged-in user
-			Integer customerId = (Integer) session.getAttribute("customerId");
-			if (!account.getCustomerId()
-					.equals(customerId)) {
-				model.addAttribute("error", "unauthorised access to account");
-				List<Account> accounts = getCustomerAccounts(session);
+			LOGGER.info("request: view account details - accountId={}", accountId);
+
+			try {
+				// verify account belongs to logged-in user
+				if (!ownsAccount(request, accountId)) {
+					model.addAttribute("error", "unauthorised access to account");
+					List<Account> accounts = getCustomerAccounts(request);
+					model.addAttribute("accounts", accounts);
+					return "view-account";
+				}
+				Account account = bankingService.getAccountDetails(accountId);
+				model.addAttribute("account", account);
+
+				LOGGER.info("response: account details retrived - accountNumber={},balance={},",
+						account.getAccountNumber(),
+						account.getBalance());
+				return "account-details";
+			} catch (Exception e) {
+				model.addAttribute("error", "error retriving account: " + e.getMessage());
+				List<Account> accounts = getCustomerAccounts(request);
 				model.addAttribute("accounts", accounts);
+				LOGGER.error("response: error retriving account - {}", e.getMessage());
 				return "view-account";
 			}
-			model.addAttribute("account", account);
-
-			LOGGER.info("response: account details retrived - accountNumber={},balance={},",
-					account.getAccountNumber(),
-					account.getBalance());
-			return "account-details";
-		} catch (Exception e) {
-			model.addAttribute("error", "error retriving account: " + e.getMessage());
-			List<Account> accounts = getCustomerAccounts(session);
-			model.addAttribute("accounts", accounts);
-			LOGGER.error("response: error retriving account - {}", e.getMessage());
-			return "view-account";
-		}
+		};
 	}
 
 	// show deposit form
 	@GetMapping("/deposit")
-	public String showDepositForm(HttpSession session,
+	public Callable<String> showDepositForm(HttpServletRequest request,
 			Model model) {
-		if (!isLoggedIn(session)) {
-			return "redirect:/login";
-		}
-		LOGGER.info("request: show deposit form");
-		List<Account> accounts = getCustomerAccounts(session);
-		model.addAttribute("accounts", accounts);
-		return "deposit";
+		return () -> {
+			if (!isLoggedIn(request)) {
+				return "redirect:/login";
+			}
+			LOGGER.info("request: show deposit form");
+			List<Account> accounts = getCustomerAccounts(request);
+			model.addAttribute("accounts", accounts);
+			addIdempotencyKey(model);
+			return "deposit";
+		};
 	}
 
 	// process deposit
 	@PostMapping("/deposit")
-	public String deposit(@RequestParam int accountId,
+	public Callable<String> deposit(@RequestParam int accountId,
 			@RequestParam BigDecimal amount,
-			HttpSession session,
+			@RequestParam(required = false) String idempotencyKey,
+			HttpServletRequest request,
 			Model model) {
+		return () -> {
+			if (!isLoggedIn(request)) {
+				return "redirect:/login";
+			}
 
-		if (!isLoggedIn(session)) {
-			return "redirect:/login";
-		}
-
-		LOGGER.info("request: deposit - accountId{},amount={},", accountId, amount);
-
-		try {
-			// verify account belongs to logged-in user
-			Account checkAccount = bankingService.getAccountDetails(accountId);
-			Integer customerId = (Integer) session.getAttribute("customerId");
-			if (!checkAccount.getCustomerId()
-					.equals(customerId)) {
-				model.addAttribute("error", "unauthorized access to account.");
-				List<Account> accounts = getCustomerAccounts(session);
+			LOGGER.info("request: deposit - accountId{},amount={},", accountId, amount);
+
+			try {
+				// ownership is checked by the service in the same update
+				Integer customerId = getCustomerId(request);
+				Account account = runOnce(request, idempotencyKey, "deposit:" + accountId + ":" + amount.toPlainString(),
+						() -> bankingService.deposit(accountId, customerId, amount));
+				model.addAttribute("account", account);
+				model.addAttribute("message", "deposit successful");
+
+				LOGGER.info("response: deposit successful - accountId={},newBalance={}", accountId, account.getBalance());
+				return "account-details";
+			} catch (Exception e) {
+				model.addAttribute("error", "error processing deposit: " + e.getMessage());
+				List<Account> accounts = getCustomerAccounts(request);
 				model.addAttribute("accounts", accounts);
+				addIdempotencyKey(model, idempotencyKey);
+				LOGGER.error("response: error processing deposit - {}", e.getMessage());
 				return "deposit";
 			}
-
-			Account account = bankingService.deposit(accountId, amount);
-			model.addAttribute("account", account);
-			model.addAttribute("message", "deposit successful");
-
-			LOGGER.info("response: deposit successful - accountId={},newBalance={}", accountId, account.getBalance());
-			return "account-details";
-		} catch (Exception e) {
-			model.addAttribute("error", "error processing deposit: " + e.getMessage());
-			List<Account> accounts = getCustomerAccounts(session);
-			model.addAttribute("accounts", accounts);
-			LOGGER.error("response: error processing deposit - {}", e.getMessage());
-			return "deposit";
-		}
+		};
 	}
 
 	// show withdrawal form
 	@GetMapping("/withdraw")
-	public String showWithdrawForm(HttpSession session,
+	public Callable<String> showWithdrawForm(HttpServletRequest request,
 			Model model) {
+		return () -> {
+			if (!isLoggedIn(request)) {
+				return "redirect:/login";
+			}
 
-		if (!isLoggedIn(session)) {
-			return "redirect:/login";
-		}
-
-		LOGGER.info("request: show withdrawal form.");
-		List<Account> accounts = getCustomerAccounts(session);
-		model.addAttribute("accounts", accounts);
+			LOGGER.info("request: show withdrawal form.");
+			List<Account> accounts = getCustomerAccounts(request);
+			model.addAttribute("accounts", accounts);
+			addIdempotencyKey(model);
 
-		return "withdraw";
+			return "withdraw";
+		};
 	}
 
 	// process withdrawal
 	@PostMapping("/withdraw")
-	public String withdraw(@RequestParam int accountId,
+	public Callable<String> withdraw(@RequestParam int accountId,
 			@RequestParam BigDecimal amount,
-			HttpSession session,
+			@RequestParam(required = false) String idempotencyKey,
+			HttpServletRequest request,
 			Model model) {
+		return () -> {
+			if (!isLoggedIn(request)) {
+				return "redirect:/login";
+			}
 
-		if (!isLoggedIn(session)) {
-			return "redirect:/login";
-		}
+			LOGGER.info("request: withdraw - accountId={}, amount={}", accountId, amount);
 
-		LOGGER.info("request: withdraw - accountId={}, amount={}", accountId, amount);
+			try {
+				// ownership and balance are checked by the service in the same update
+				Integer customerId = getCustomerId(request);
+				Account account = runOnce(request, idempotencyKey, "withdraw:" + accountId + ":" + amount.toPlainString(),
+						() -> bankingService.withdraw(accountId, customerId, amount));
+				model.addAttribute("account", account);
+				model.addAttribute("message", "withdrawal successful !");
 
-		try {
-			// verify account belongs to logged in customer
-			Account checkAccount = bankingService.getAccountDetails(accountId);
-			Integer customerId = (Integer) session.getAttribute("customerId");
+				LOGGER.info("response: withdrawal successful - accountId={},newBalance={}",
+						accountId,
+						account.getBalance());
+				return "account-details";
 
-			if (!checkAccount.getCustomerId()
-					.equals(customerId)) {
-				model.addAttribute("error", "unauthorized access to account.");
-				List<Account> accounts = getCustomerAccounts(session);
+			} catch (Exception e) {
+				model.addAttribute("error", "error processing withdrawal: " + e.getMessage());
+				List<Account> accounts = getCustomerAccounts(request);
 				model.addAttribute("accounts", accounts);
+				addIdempotencyKey(model, idempotencyKey);
+				LOGGER.info("response: error processing withdrawal - {}", e.getMessage());
 				return "withdraw";
 			}
-
-			Account account = bankingService.withdraw(accountId, amount);
-			model.addAttribute("account", account);
-			model.addAttribute("message", "withdrawal successful !");
-
-			LOGGER.info("response: withdrawal successful - accountId={},newBalance={}",
-					accountId,
-					account.getBalance());
-			return "account-details";
-
-		} catch (Exception e) {
-			model.addAttribute("error", "error processing withdrawal: " + e.getMessage());
-			List<Account> accounts = getCustomerAccounts(session);
-			model.addAttribute("accounts", accounts);
-			LOGGER.info("response: error processing withdrawal - {}", e.getMessage());
-			return "withdraw";
-		}
+		};
 	}
 
 	// show transfer form
 	@GetMapping("/transfer")
-	public String showTransferForm(HttpSession session,
+	public Callable<String> showTransferForm(HttpServletRequest request,
 			Model model) {
-		if (!isLoggedIn(session)) {
-			return "redirect:/login";
-		}
-		LOGGER.info("request: show transfer form.");
-		List<Account> userAccounts = getCustomerAccounts(session);
-		List<Account> allAccounts = bankingService.getAllAccounts();
-		model.addAttribute("accounts", userAccounts);
-		model.addAttribute("allAccounts", allAccounts);
-		return "transfer";
+		return () -> {
+			if (!isLoggedIn(request)) {
+				return "redirect:/login";
+			}
+			LOGGER.info("request: show transfer form.");
+			List<Account> userAccounts = getCustomerAccounts(request);
+			model.addAttribute("accounts", userAccounts);
+			addIdempotencyKey(model);
+			return "transfer";
+		};
 	}
 
 	// process transfer
 	@PostMapping("/transfer")
-	public String transfer(@RequestParam int fromAccountId,
-			@RequestParam int toAccountId,
+	public Callable<String> transfer(@RequestParam int fromAccountId,
+			@RequestParam String toAccountNumber,
 			@RequestParam BigDecimal amount,
-			HttpSession session,
+			@RequestParam(required = false) String idempotencyKey,
+			HttpServletRequest request,
 			Model model) {
-
-		if (!isLoggedIn(session)) {
-			return "redirect:/login";
-		}
-
-		LOGGER.info("request: transfer - fromAccountId={},toAccountId={},amount={}",
-				fromAccountId,
-				toAccountId,
-				amount);
-
-		try {
-			// verify source account belongs to logged-in user.
-			Account fromAccount = bankingService.getAccountDetails(fromAccountId);
-			Integer customerId = (Integer) session.getAttribute("customerId");
-
-			if (!fromAccount.getCustomerId()
-					.equals(customerId)) {
-				model.addAttribute("error", "unauthorized access to source account");
-				List<Account> userAccounts = getCustomerAccounts(session);
-				List<Account> allAccounts = bankingService.getAllAccounts();
-				model.addAttribute("accounts", userAccounts);
-				model.addAttribute("allAccounts", allAccounts);
-				return "transfer";
+		return () -> {
+			if (!isLoggedIn(request)) {
+				return "redirect:/login";
 			}
 
-			bankingService.transfer(fromAccountId, toAccountId, amount);
-			Account account = bankingService.getAccountDetails(fromAccountId);
-			model.addAttribute("account", account);
-			model.addAttribute("message", "transfer successfully");
-
-			LOGGER.info("response: transfer successful - fromAccountId={}, toAccountIs={},amount={}",
-					fromAccount,
-					toAccountId,
+			LOGGER.info("request: transfer - fromAccountId={},toAccountNumber={},amount={}",
+					fromAccountId,
+					toAccountNumber,
 					amount);
+
+			// a retry that differs only in spacing or case is the same request
+			String destination = AccountNumberAllocator.normalize(toAccountNumber);
+			try {
+				Account account = runOnce(request, idempotencyKey,
+						"transfer:" + fromAccountId + ":" + destination + ":" + amount.toPlainString(), () -> {
+							// verify source account belongs to logged-in user.
+							if (!ownsAccount(request, fromAccountId)) {
+								throw new IllegalArgumentException("unauthorized access to source account");
+							}
+							// one indexed lookup, not a list of every account in the bank
+							int toAccountId = bankingService.getAccountIdByNumber(destination);
+							return bankingService.transfer(fromAccountId, toAccountId, amount);
+						});
+				model.addAttribute("account", account);
+				model.addAttribute("message", "transfer successfully");
+
+				LOGGER.info("response: transfer successful - fromAccountId={}, toAccountNumber={},amount={}",
+						fromAccountId,
+						toAccountNumber,
+						amount);
 			
-			return "account-details";
-
-		} catch (Exception e) {
-			model.addAttribute("error", "Error processing transfer: " + e.getMessage());
-            List<Account> userAccounts = getCustomerAccounts(session);
-            List<Account> allAccounts = bankingService.getAllAccounts();
-            model.addAttribute("accounts", userAccounts);
-            model.addAttribute("allAccounts", allAccounts);
-            LOGGER.error("Response: Error processing transfer - {}", e.getMessage());
+				return "account-details";
+
+			} catch (Exception e) {
+				model.addAttribute("error", "Error processing transfer: " + e.getMessage());
+                List<Account> userAccounts = getCustomerAccounts(request);
+                model.addAttribute("accounts", userAccounts);
+                model.addAttribute("toAccountNumber", toAccountNumber);
+                addIdempotencyKey(model, idempotencyKey);
+                LOGGER.error("Response: Error processing transfer - {}", e.getMessage());
             
-            return "transfer";
-		}
+                return "transfer";
+			}
+		};
 	}
 
 	   // Show transaction history form
     @GetMapping("/transactionHistory")
-    public String showTransactionHistoryForm(HttpSession session, Model model) {
-        if (!isLoggedIn(session)) {
-            return "redirect:/login";
-        }
-        LOGGER.info("Request: Show transaction history form");
-        List<Account> accounts = getCustomerAccounts(session);
-        model.addAttribute("accounts", accounts);
-        return "transaction-history-form";
+    public Callable<String> showTransactionHistoryForm(HttpServletRequest request, Model model) {
+        return () -> {
+            if (!isLoggedIn(request)) {
+                return "redirect:/login";
+            }
+            LOGGER.info("Request: Show transaction history form");
+            List<Account> accounts = getCustomerAccounts(request);
+            model.addAttribute("accounts", accounts);
+            return "transaction-history-form";
+        };
     }
     
     // View transaction history
     @PostMapping("/transactionHistory")
-    public String transactionHistory(@RequestParam int accountId, HttpSession session, Model model) {
-        if (!isLoggedIn(session)) {
-            return "redirect:/login";
-        }
+    public Callable<String> transactionHistory(@RequestParam int accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + BankingService.DEFAULT_HISTORY_PAGE_SIZE) int pageSize,
+            HttpServletRequest request, Model model) {
+        return () -> {
+            if (!isLoggedIn(request)) {
+                return "redirect:/login";
+            }
         
-        LOGGER.info("Request: Transaction history - accountId={}", accountId);
+            LOGGER.info("Request: Transaction history - accountId={}", accountId);
         
-        try {
-            Account account = bankingService.getAccountDetails(accountId);
-            
-            // Verify account belongs to logged-in user
-            Integer customerId = (Integer) session.getAttribute("customerId");
-            if (!account.getCustomerId().equals(customerId)) {
-                model.addAttribute("error", "Unauthorized access to account");
-                List<Account> accounts = getCustomerAccounts(session);
-                model.addAttribute("accounts", accounts);
-                return "transaction-history-form";
-            }
+            try {
+                // Verify account belongs to logged-in user
+                if (!ownsAccount(request, accountId)) {
+                    model.addAttribute("error", "Unauthorized access to account");
+                    List<Account> accounts = getCustomerAccounts(request);
+                    model.addAttribute("accounts", accounts);
+                    return "transaction-history-form";
+                }
             
-            List<Transaction> transactions = bankingService.getTransactionHistory(accountId);
+                Account account = bankingService.getAccountDetails(accountId);
+                TransactionPage page = bankingService.getTransactionHistory(accountId, cursor, pageSize);
             
-            model.addAttribute("account", account);
-            model.addAttribute("transactions", transactions);
+                model.addAttribute("account", account);
+                model.addAttribute("transactions", page.getTransactions());
+                model.addAttribute("page", page);
+                model.addAttribute("pageSize", pageSize);
             
-            LOGGER.info("Response: Transaction history retrieved - accountId={}, transactionCount={}", 
-                       accountId, transactions.size());
+                LOGGER.info("Response: Transaction history retrieved - accountId={}, transactionCount={}", 
+                           accountId, page.getTransactions().size());
             
-            return "transaction-history";
-        } catch (Exception e) {
-            model.addAttribute("error", "Error retrieving transaction history: " + e.getMessage());
-            List<Account> accounts = getCustomerAccounts(session);
-            model.addAttribute("accounts", accounts);
-            LOGGER.error("Response: Error retrieving transaction history - {}", e.getMessage());
-            return "transaction-history-form";
-        }
+                return "transaction-history";
+            } catch (Exception e) {
+                model.addAttribute("error", "Error retrieving transaction history: " + e.getMessage());
+                List<Account> accounts = getCustomerAccounts(request);
+                model.addAttribute("accounts", accounts);
+                LOGGER.error("Response: Error retrieving transaction history - {}", e.getMessage());
+                return "transaction-history-form";
+            }
+        };
     }
 	
 	
@@ -0,0 +1,135 @@
+package com.banking.controller;
+
+import java.time.LocalDate;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.banking.batch.InterestAccrualEngine;
+import com.banking.batch.ReconciliationEngine;
+import com.banking.model.InterestAccrualRun;
+import com.banking.model.ReconciliationDiscrepancy;
+import com.banking.model.ReconciliationReport;
+import com.banking.model.SessionPrincipal;
+
+// Admin endpoints to start batch jobs by hand and check on them
+@Controller
+public class BatchController {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BatchController.class);
+
+	private InterestAccrualEngine interestAccrualEngine;
+	private ReconciliationEngine reconciliationEngine;
+
+	public void setInterestAccrualEngine(InterestAccrualEngine interestAccrualEngine) {
+		this.interestAccrualEngine = interestAccrualEngine;
+	}
+
+	public void setReconciliationEngine(ReconciliationEngine reconciliationEngine) {
+		this.reconciliationEngine = reconciliationEngine;
+	}
+
+	private boolean isAdmin(HttpServletRequest request) {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		return principal != null && principal.isAdmin();
+	}
+
+	// start interest accrual for a date (default yesterday); reruns skip finished ranges
+	@PostMapping("/admin/interest/run")
+	@ResponseBody
+	public ResponseEntity<String> runInterestAccrual(
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+			HttpServletRequest request) {
+		if (!isAdmin(request)) {
+			LOGGER.warn("request: interest accrual denied - userId={}", SessionPrincipal.userIdOf(request));
+			return ResponseEntity.status(HttpStatus.FORBIDDEN)
+					.body("forbidden");
+		}
+
+		LocalDate accrualDate = date != null ? date
+				: LocalDate.now()
+						.minusDays(1);
+		LOGGER.info("request: interest accrual - userId={}, date={}", SessionPrincipal.userIdOf(request), accrualDate);
+		if (!interestAccrualEngine.runInBackground(accrualDate)) {
+			return ResponseEntity.status(HttpStatus.CONFLICT)
+					.body("interest accrual already running\n");
+		}
+		return ResponseEntity.status(HttpStatus.ACCEPTED)
+				.body("interest accrual started for " + accrualDate + "\n");
+	}
+
+	@GetMapping("/admin/interest/status")
+	@ResponseBody
+	public ResponseEntity<String> interestAccrualStatus(HttpServletRequest request) {
+		if (!isAdmin(request)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN)
+					.body("forbidden");
+		}
+
+		InterestAccrualRun last = interestAccrualEngine.getLastRun();
+		String body = "running=" + interestAccrualEngine.isRunning() + "\nlastRun=" + (last == null ? "none" : last)
+				+ "\n";
+		return ResponseEntity.ok(body);
+	}
+
+	// start reconciliation; full=true re-verifies every ledger line instead of only new ones
+	@PostMapping("/admin/reconciliation/run")
+	@ResponseBody
+	public ResponseEntity<String> runReconciliation(@RequestParam(defaultValue = "false") boolean full,
+			HttpServletRequest request) {
+		if (!isAdmin(request)) {
+			LOGGER.warn("request: reconciliation denied - userId={}", SessionPrincipal.userIdOf(request));
+			return ResponseEntity.status(HttpStatus.FORBIDDEN)
+					.body("forbidden");
+		}
+
+		LOGGER.info("request: reconciliation - userId={}, full={}", SessionPrincipal.userIdOf(request), full);
+		if (!reconciliationEngine.runInBackground(full)) {
+			return ResponseEntity.status(HttpStatus.CONFLICT)
+					.body("reconciliation already running\n");
+		}
+		return ResponseEntity.status(HttpStatus.ACCEPTED)
+				.body("reconciliation started, full=" + full + "\n");
+	}
+
+	// last report as text: a summary line, then one line per discrepancy
+	@GetMapping("/admin/reconciliation/status")
+	@ResponseBody
+	public ResponseEntity<String> reconciliationStatus(HttpServletRequest request) {
+		if (!isAdmin(request)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN)
+					.body("forbidden");
+		}
+
+		ReconciliationReport report = reconciliationEngine.getLastReport();
+		StringBuilder body = new StringBuilder("running=").append(reconciliationEngine.isRunning())
+				.append("\nlastReport=")
+				.append(report == null ? "none" : report)
+				.append('\n');
+		if (report != null) {
+			for (ReconciliationDiscrepancy discrepancy : report.getDiscrepancies()) {
+				body.append(discrepancy.getKind())
+						.append(" accountId=")
+						.append(discrepancy.getAccountId())
+						.append(" transactionId=")
+						.append(discrepancy.getTransactionId())
+						.append(" expected=")
+						.append(discrepancy.getExpected())
+						.append(" actual=")
+						.append(discrepancy.getActual())
+						.append('\n');
+			}
+		}
+		return ResponseEntity.ok(body.toString());
+	}
+}
@@ -0,0 +1,237 @@
+package com.banking.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.banking.model.BulkAccountRequest;
+import com.banking.model.BulkItemResult;
+import com.banking.model.BulkPostingRequest;
+import com.banking.model.PayrollCredit;
+import com.banking.model.PayrollResult;
+import com.banking.model.SessionPrincipal;
+import com.banking.service.BankingService;
+import com.banking.service.BulkService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Bulk account opening and bulk credit posting for partner uploads (admin
+// only), and payroll runs from a customer's own account. The body is a JSON
+// array or CSV with a header row (Content-Type text/csv); bulk responses are
+// one NDJSON result per item, written after each chunk.
+@Controller
+public class BulkController {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BulkController.class);
+
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+			.configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true);
+
+	private BulkService bulkService;
+	private BankingService bankingService;
+
+	public void setBulkService(BulkService bulkService) {
+		this.bulkService = bulkService;
+	}
+
+	public void setBankingService(BankingService bankingService) {
+		this.bankingService = bankingService;
+	}
+
+	// CSV columns: firstName,lastName,email,phone,initialDeposit,accountType
+	@PostMapping("/bulk/accounts")
+	public void openAccounts(HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		if (!authorize(request, response, "bulk accounts")) {
+			return;
+		}
+		BulkRequestReader<BulkAccountRequest> reader = open(request, response, BulkAccountRequest.class,
+				row -> BulkAccountRequest.builder()
+						.firstName(row.get("firstName"))
+						.lastName(row.get("lastName"))
+						.email(row.get("email"))
+						.phone(row.get("phone"))
+						.initialDeposit(decimal(row.get("initialDeposit")))
+						.accountType(row.get("accountType"))
+						.build());
+		if (reader != null) {
+			process(reader, response, bulkService::openAccounts);
+		}
+	}
+
+	// CSV columns: accountId,amount,description
+	@PostMapping("/bulk/postings")
+	public void postCredits(HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		if (!authorize(request, response, "bulk postings")) {
+			return;
+		}
+		BulkRequestReader<BulkPostingRequest> reader = open(request, response, BulkPostingRequest.class,
+				row -> BulkPostingRequest.builder()
+						.accountId(row.get("accountId") == null ? null : Integer.valueOf(row.get("accountId")
+								.trim()))
+						.amount(decimal(row.get("amount")))
+						.description(row.get("description"))
+						.build());
+		if (reader != null) {
+			process(reader, response, bulkService::postCredits);
+		}
+	}
+
+	// pay many accounts from one of the customer's accounts; CSV columns: accountId,amount.
+	// the whole run is answered at once; resubmit with the same batchId to finish a failed run.
+	@PostMapping("/bulk/payroll")
+	public void payroll(@RequestParam String batchId, @RequestParam int fromAccountId, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		Integer customerId = principal == null ? null : principal.getCustomerId();
+		LOGGER.info("request: payroll - batchId={}, fromAccountId={}, customerId={}", batchId, fromAccountId,
+				customerId);
+
+		BulkRequestReader<PayrollCredit> reader = open(request, response, PayrollCredit.class,
+				row -> PayrollCredit.builder()
+						.accountId(row.get("accountId") == null ? null : Integer.valueOf(row.get("accountId")
+								.trim()))
+						.amount(decimal(row.get("amount")))
+						.build());
+		if (reader == null) {
+			return;
+		}
+
+		List<PayrollCredit> credits = new ArrayList<>();
+		try (BulkRequestReader<PayrollCredit> items = reader) {
+			BulkRequestReader.Item<PayrollCredit> next;
+			while ((next = items.next()) != null) {
+				if (next.error != null) {
+					response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+							"payroll item " + (credits.size() + 1) + ": " + next.error);
+					return;
+				}
+				credits.add(next.value);
+			}
+		}
+
+		PayrollResult result;
+		try {
+			result = bankingService.payroll(batchId, fromAccountId, customerId, credits);
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("response: payroll rejected - batchId={}, error={}", batchId, e.getMessage());
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+			return;
+		}
+		response.setContentType("application/json");
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		objectMapper.writeValue(response.getOutputStream(), result);
+	}
+
+	private boolean authorize(HttpServletRequest request, HttpServletResponse response, String operation)
+			throws IOException {
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		if (principal == null || !principal.isAdmin()) {
+			LOGGER.warn("request: {} denied - userId={}", operation, SessionPrincipal.userIdOf(request));
+			response.sendError(HttpServletResponse.SC_FORBIDDEN, "forbidden");
+			return false;
+		}
+		LOGGER.info("request: {} - userId={}", operation, SessionPrincipal.userIdOf(request));
+		return true;
+	}
+
+	private <T> BulkRequestReader<T> open(HttpServletRequest request, HttpServletResponse response, Class<T> type,
+			Function<Map<String, String>, T> csvConverter) throws IOException {
+		String contentType = request.getContentType();
+		try {
+			if (contentType != null && contentType.startsWith("text/csv")) {
+				return BulkRequestReader.forCsv(request.getInputStream(), csvConverter);
+			}
+			return BulkRequestReader.forJson(request.getInputStream(), objectMapper, type);
+		} catch (IllegalArgumentException | IOException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+			return null;
+		}
+	}
+
+	// read a chunk, process it, write its results, repeat
+	private <T> void process(BulkRequestReader<T> reader, HttpServletResponse response,
+			BiFunction<Integer, List<T>, List<BulkItemResult>> chunkProcessor) throws IOException {
+		response.setContentType("application/x-ndjson");
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+
+		int chunkSize = bulkService.getChunkSize();
+		List<T> chunk = new ArrayList<>(chunkSize);
+		int chunkStart = 1;
+		int item = 0;
+		// ok, failed
+		int[] counts = new int[2];
+
+		try (BulkRequestReader<T> items = reader) {
+			BulkRequestReader.Item<T> next;
+			while ((next = items.next()) != null) {
+				item++;
+				if (next.error != null) {
+					// keep results in request order: finish the pending chunk first
+					write(out, processChunk(chunk, chunkStart, chunkProcessor), counts);
+					write(out, Collections.singletonList(BulkItemResult.builder()
+							.item(item)
+							.status(BulkItemResult.ERROR)
+							.error(next.error)
+							.build()), counts);
+					continue;
+				}
+				if (chunk.isEmpty()) {
+					chunkStart = item;
+				}
+				chunk.add(next.value);
+				if (chunk.size() >= chunkSize) {
+					write(out, processChunk(chunk, chunkStart, chunkProcessor), counts);
+					out.flush();
+				}
+			}
+			write(out, processChunk(chunk, chunkStart, chunkProcessor), counts);
+			out.flush();
+		}
+		LOGGER.info("bulk request finished: items={}, ok={}, failed={}", item, counts[0], counts[1]);
+	}
+
+	private <T> List<BulkItemResult> processChunk(List<T> chunk, int chunkStart,
+			BiFunction<Integer, List<T>, List<BulkItemResult>> chunkProcessor) {
+		if (chunk.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<BulkItemResult> results = chunkProcessor.apply(chunkStart, new ArrayList<>(chunk));
+		chunk.clear();
+		return results;
+	}
+
+	private void write(Writer out, List<BulkItemResult> results, int[] counts) throws IOException {
+		for (BulkItemResult result : results) {
+			counts[BulkItemResult.OK.equals(result.getStatus()) ? 0 : 1]++;
+			out.write(objectMapper.writeValueAsString(result));
+			out.write('\n');
+		}
+	}
+
+	private static BigDecimal decimal(String value) {
+		return value == null || value.trim()
+				.isEmpty() ? null : new BigDecimal(value.trim());
+	}
+}
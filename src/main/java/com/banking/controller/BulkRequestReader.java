@@ -0,0 +1,149 @@
+package com.banking.controller;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Reads bulk request items one at a time from a JSON array or a CSV body with
+// a header row, so a large upload is never held in memory as a whole.
+// A CSV row that cannot be converted becomes an item error and reading goes
+// on; malformed JSON ends the stream, since the parser cannot resynchronise.
+abstract class BulkRequestReader<T> implements Closeable {
+
+	// one parsed item: either a value or the reason it could not be read
+	static final class Item<T> {
+
+		final T value;
+		final String error;
+
+		private Item(T value, String error) {
+			this.value = value;
+			this.error = error;
+		}
+	}
+
+	// null at the end of the input
+	abstract Item<T> next() throws IOException;
+
+	static <T> BulkRequestReader<T> forJson(InputStream in, ObjectMapper mapper, Class<T> type) throws IOException {
+		JsonParser parser = mapper.getFactory()
+				.createParser(in);
+		if (parser.nextToken() != JsonToken.START_ARRAY) {
+			parser.close();
+			throw new IllegalArgumentException("request body must be a JSON array");
+		}
+
+		return new BulkRequestReader<T>() {
+
+			private boolean failed;
+
+			@Override
+			Item<T> next() throws IOException {
+				if (failed) {
+					return null;
+				}
+				try {
+					JsonToken token = parser.nextToken();
+					if (token == null || token == JsonToken.END_ARRAY) {
+						return null;
+					}
+					return new Item<>(mapper.readValue(parser, type), null);
+				} catch (JsonProcessingException e) {
+					failed = true;
+					return new Item<>(null, "malformed JSON, stopped reading: " + e.getOriginalMessage());
+				}
+			}
+
+			@Override
+			public void close() throws IOException {
+				parser.close();
+			}
+		};
+	}
+
+	// the header row names the columns; converter gets each row as column name -> value
+	static <T> BulkRequestReader<T> forCsv(InputStream in, Function<Map<String, String>, T> converter)
+			throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		String headerLine = reader.readLine();
+		if (headerLine == null) {
+			reader.close();
+			throw new IllegalArgumentException("CSV body needs a header row");
+		}
+		List<String> header = splitCsv(headerLine);
+
+		return new BulkRequestReader<T>() {
+
+			@Override
+			Item<T> next() throws IOException {
+				String line;
+				do {
+					line = reader.readLine();
+					if (line == null) {
+						return null;
+					}
+				} while (line.trim()
+						.isEmpty());
+
+				List<String> fields = splitCsv(line);
+				Map<String, String> row = new HashMap<>();
+				for (int i = 0; i < header.size() && i < fields.size(); i++) {
+					row.put(header.get(i)
+							.trim(), fields.get(i));
+				}
+				try {
+					return new Item<>(converter.apply(row), null);
+				} catch (RuntimeException e) {
+					return new Item<>(null, "invalid row: " + e.getMessage());
+				}
+			}
+
+			@Override
+			public void close() throws IOException {
+				reader.close();
+			}
+		};
+	}
+
+	// one line of RFC 4180 CSV; quoted fields may contain commas and doubled quotes, not line breaks
+	static List<String> splitCsv(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+}
@@ -0,0 +1,51 @@
+package com.banking.controller;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.banking.metrics.MetricsRegistry;
+
+// The scrape exposes per-endpoint traffic, pool state and rejection counts,
+// so it answers only the scraper's addresses. The scraper has no session,
+// hence an address allow-list rather than a login; it is checked against the
+// connecting address, never a forwarded header.
+@Controller
+public class MetricsController {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetricsController.class);
+
+	private MetricsRegistry metricsRegistry;
+	private Set<String> allowedAddresses = new HashSet<>(Arrays.asList("127.0.0.1", "0:0:0:0:0:0:0:1"));
+
+	public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	public void setAllowedAddresses(Collection<String> allowedAddresses) {
+		this.allowedAddresses = new HashSet<>(allowedAddresses);
+	}
+
+	// prometheus scrape endpoint
+	@GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+	@ResponseBody
+	public ResponseEntity<String> metrics(HttpServletRequest request) {
+		if (!allowedAddresses.contains(request.getRemoteAddr())) {
+			LOGGER.warn("request: metrics scrape denied - remoteAddr={}", request.getRemoteAddr());
+			return ResponseEntity.status(HttpStatus.FORBIDDEN)
+					.body("forbidden\n");
+		}
+		return ResponseEntity.ok(metricsRegistry.scrape());
+	}
+}
@@ -0,0 +1,177 @@
+package com.banking.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.banking.model.SessionPrincipal;
+import com.banking.model.Transaction;
+import com.banking.service.BankingService;
+
+// Full account statement download, written row by row to the response so
+// memory stays flat however long the ledger is.
+@Controller
+public class StatementController {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StatementController.class);
+
+	private static final String CSV_HEADER = "transaction_id,transaction_date,transaction_type,amount,balance_after,description\n";
+
+	private BankingService bankingService;
+
+	public void setBankingService(BankingService bankingService) {
+		this.bankingService = bankingService;
+	}
+
+	// export statement: format is csv or ndjson, from and to are inclusive dates (yyyy-MM-dd)
+	@GetMapping("/statement/{accountId}")
+	public void statement(@PathVariable int accountId,
+			@RequestParam(defaultValue = "csv") String format,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+
+		boolean csv;
+		if ("csv".equalsIgnoreCase(format)) {
+			csv = true;
+		} else if ("ndjson".equalsIgnoreCase(format)) {
+			csv = false;
+		} else {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "format must be csv or ndjson");
+			return;
+		}
+
+		SessionPrincipal principal = SessionPrincipal.of(request);
+		Integer customerId = principal == null ? null : principal.getCustomerId();
+		Timestamp fromDate = from != null ? Timestamp.valueOf(from.atStartOfDay()) : null;
+		Timestamp toDate = to != null ? Timestamp.valueOf(to.plusDays(1)
+				.atStartOfDay()) : null;
+
+		LOGGER.info("request: statement - accountId={}, format={}, from={}, to={}", accountId, format, from, to);
+
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+		response.setHeader("Content-Disposition",
+				"attachment; filename=\"statement-" + accountId + (csv ? ".csv\"" : ".ndjson\""));
+
+		Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8),
+				16 * 1024);
+		try {
+			if (csv) {
+				out.write(CSV_HEADER);
+			}
+			long rows = bankingService.exportStatement(accountId, customerId, fromDate, toDate, transaction -> {
+				try {
+					out.write(csv ? toCsv(transaction) : toJson(transaction));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			out.flush();
+			LOGGER.info("statement written: accountId={}, rows={}", accountId, rows);
+		} catch (IllegalArgumentException e) {
+			// ownership is checked before the first row, so nothing has been sent yet
+			LOGGER.warn("statement refused: accountId={}, error={}", accountId, e.getMessage());
+			response.reset();
+			response.sendError(HttpServletResponse.SC_FORBIDDEN, e.getMessage());
+		} catch (UncheckedIOException e) {
+			// client went away mid-download
+			LOGGER.info("statement aborted: accountId={}, error={}", accountId, e.getCause()
+					.getMessage());
+		}
+	}
+
+	private static String toCsv(Transaction transaction) {
+		return transaction.getTransactionId() + "," + toIsoDate(transaction) + ","
+				+ csvField(transaction.getTransactionType()) + "," + transaction.getAmount()
+						.toPlainString()
+				+ "," + plain(transaction.getBalanceAfter()) + "," + csvField(transaction.getDescription()) + "\n";
+	}
+
+	private static String toJson(Transaction transaction) {
+		return "{\"transactionId\":" + transaction.getTransactionId() + ",\"accountId\":" + transaction.getAccountId()
+				+ ",\"transactionDate\":" + jsonString(toIsoDate(transaction)) + ",\"transactionType\":"
+				+ jsonString(transaction.getTransactionType()) + ",\"amount\":" + transaction.getAmount()
+						.toPlainString()
+				+ ",\"balanceAfter\":" + (transaction.getBalanceAfter() == null ? "null" : plain(transaction.getBalanceAfter()))
+				+ ",\"description\":" + jsonString(transaction.getDescription()) + "}\n";
+	}
+
+	private static String toIsoDate(Transaction transaction) {
+		return ((Timestamp) transaction.getTransactionDate()).toLocalDateTime()
+				.toString();
+	}
+
+	private static String plain(BigDecimal value) {
+		return value == null ? "" : value.toPlainString();
+	}
+
+	// quote only when needed, doubling embedded quotes (RFC 4180). descriptions
+	// come from users, so a cell a spreadsheet would read as a formula gets a
+	// leading ' and stays text
+	private static String csvField(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+			value = "'" + value;
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+	private static String jsonString(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"')
+				.toString();
+	}
+}
@@ -2,8 +2,11 @@ package com.banking.dao;
 
 import java.math.BigDecimal;
 import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -64,7 +67,7 @@ public class AccountDao {
 		KeyHolder keyHolder = new GeneratedKeyHolder();
 
 		jdbcTemplate.update(connection -> {
-			PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			PreparedStatement ps = connection.prepareStatement(sql, new String[] { "account_id" });
 			ps.setInt(1, account.getCustomerId());
 			ps.setString(2, account.getAccountNumber());
 			ps.setBigDecimal(3, account.getBalance());
@@ -77,25 +80,139 @@ public class AccountDao {
 
 	}
 
+	// insert several accounts in one JDBC batch; returns their ids in input order
+	public int[] createAccounts(List<Account> accounts) {
+		String sql = "INSERT INTO account (customer_id,account_number,balance,account_type) VALUES (?,?,?,?)";
+		return jdbcTemplate.execute(BatchInserts.returningKeys(sql, "account_id", accounts, (ps, account) -> {
+			ps.setInt(1, account.getCustomerId());
+			ps.setString(2, account.getAccountNumber());
+			ps.setBigDecimal(3, account.getBalance());
+			ps.setString(4, account.getAccountType());
+		}));
+	}
+
 	public Account getAccountById(int accountId) {
 		String sql = "SELECT a.*, c.first_name ,c.last_name , c.email , c.phone "
 				+ "FROM account a JOIN customer c ON a.customer_id=c.customer_id " + "WHERE a.account_id=?";
 		return jdbcTemplate.queryForObject(sql, accountWithCustomerRowMapper, accountId);
 	}
 
+	// current balance only, by primary key
+	public BigDecimal getBalance(int accountId) {
+		String sql = "SELECT balance FROM account WHERE account_id = ?";
+		return jdbcTemplate.queryForObject(sql, BigDecimal.class, accountId);
+	}
+
+	// owner of the account by primary key, or null when there is no such account
+	public Integer getCustomerIdByAccountId(int accountId) {
+		String sql = "SELECT customer_id FROM account WHERE account_id = ?";
+		List<Integer> customerIds = jdbcTemplate.queryForList(sql, Integer.class, accountId);
+		return customerIds.isEmpty() ? null : customerIds.get(0);
+	}
+
+	// the account with a balance the caller already read, e.g. inside its own transaction
+	public Account getAccountWithBalance(int accountId, BigDecimal balance) {
+		Account account = getAccountById(accountId);
+		account.setBalance(balance);
+		return account;
+	}
+
 	public List<Account> getAccountsByCustomerId(int customerId) {
 		String sql = "SELECT * FROM account WHERE customer_id = ? ORDER BY account_id";
 		return jdbcTemplate.query(sql, accountRowMapper, customerId);
 	}
 
-	public List<Account> getAllAccounts() {
+	// ids only, answered from the customer_id index
+	public List<Integer> getAccountIdsByCustomerId(int customerId) {
+		String sql = "SELECT account_id FROM account WHERE customer_id = ? ORDER BY account_id";
+		return jdbcTemplate.queryForList(sql, Integer.class, customerId);
+	}
+
+	// accounts of one customer with holder name, filtered on the customer_id index
+	public List<Account> getAccountsWithCustomerByCustomerId(int customerId) {
 		String sql = "SELECT a.*, c.first_name, c.last_name , c.email , c.phone "
-				+ "FROM account a JOIN customer c ON a.customer_id = c.customer_id " + "ORDER BY a.account_id";
-		return jdbcTemplate.query(sql, accountWithCustomerRowMapper);
+				+ "FROM account a JOIN customer c ON a.customer_id = c.customer_id "
+				+ "WHERE a.customer_id = ? ORDER BY a.account_id";
+		return jdbcTemplate.query(sql, accountWithCustomerRowMapper, customerId);
+	}
+
+	// id of the account with this number from the unique account_number index, or null
+	public Integer getAccountIdByNumber(String accountNumber) {
+		String sql = "SELECT account_id FROM account WHERE account_number = ?";
+		List<Integer> accountIds = jdbcTemplate.queryForList(sql, Integer.class, accountNumber);
+		return accountIds.isEmpty() ? null : accountIds.get(0);
 	}
 
 	public void updateBalance(int accountId, BigDecimal newBalance) {
 		String sql = "UPDATE account SET balance = ? WHERE account_id = ?";
 		jdbcTemplate.update(sql, newBalance, accountId);
 	}
+
+	// add delta to the balance only if the account belongs to the customer and
+	// the result is not negative. returns the number of rows changed (0 or 1).
+	public int applyBalanceDelta(int accountId, int customerId, BigDecimal delta) {
+		String sql = "UPDATE account SET balance = balance + ? "
+				+ "WHERE account_id = ? AND customer_id = ? AND balance + ? >= 0";
+		return jdbcTemplate.update(sql, delta, accountId, customerId, delta);
+	}
+
+	// lowest and highest account ids, or null when the table is empty
+	public Integer getMinAccountId() {
+		return jdbcTemplate.queryForObject("SELECT MIN(account_id) FROM account", Integer.class);
+	}
+
+	public Integer getMaxAccountId() {
+		return jdbcTemplate.queryForObject("SELECT MAX(account_id) FROM account", Integer.class);
+	}
+
+	// accounts in [fromAccountId, toAccountId), in id order
+	public List<Account> getAccountsInRange(int fromAccountId, int toAccountId) {
+		String sql = "SELECT * FROM account WHERE account_id >= ? AND account_id < ? ORDER BY account_id";
+		return jdbcTemplate.query(sql, accountRowMapper, fromAccountId, toAccountId);
+	}
+
+	// lock the accounts of the given types in [fromAccountId, toAccountId), in id order
+	public List<Account> lockAccountsInRange(int fromAccountId, int toAccountId, Collection<String> accountTypes) {
+		String placeholders = String.join(",", Collections.nCopies(accountTypes.size(), "?"));
+		String sql = "SELECT * FROM account WHERE account_id >= ? AND account_id < ? "
+				+ "AND account_type IN (" + placeholders + ") ORDER BY account_id FOR UPDATE";
+		List<Object> args = new ArrayList<>(accountTypes.size() + 2);
+		args.add(fromAccountId);
+		args.add(toAccountId);
+		args.addAll(accountTypes);
+		return jdbcTemplate.query(sql, accountRowMapper, args.toArray());
+	}
+
+	// add each delta to its account's balance in one JDBC batch
+	public void applyBalanceDeltas(Map<Integer, BigDecimal> deltas) {
+		String sql = "UPDATE account SET balance = balance + ? WHERE account_id = ?";
+		List<Map.Entry<Integer, BigDecimal>> entries = new ArrayList<>(deltas.entrySet());
+		jdbcTemplate.batchUpdate(sql, entries, entries.size(), (ps, entry) -> {
+			ps.setBigDecimal(1, entry.getValue());
+			ps.setInt(2, entry.getKey());
+		});
+	}
+
+	// lock the given accounts in id order; ids that do not exist are left out
+	public List<Account> lockAccountsByIds(Collection<Integer> accountIds) {
+		if (accountIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		String placeholders = String.join(",", Collections.nCopies(accountIds.size(), "?"));
+		String sql = "SELECT * FROM account WHERE account_id IN (" + placeholders + ") ORDER BY account_id FOR UPDATE";
+		return jdbcTemplate.query(sql, accountRowMapper, accountIds.toArray());
+	}
+
+	// nothing is cached here; CachingAccountDao drops its copies of the customer row
+	public void evictCustomer(int customerId) {
+	}
+
+	public void evictAll() {
+	}
+
+	// lock one account row for the rest of the current transaction
+	public Account lockAccountById(int accountId) {
+		String sql = "SELECT * FROM account WHERE account_id = ? FOR UPDATE";
+		return jdbcTemplate.queryForObject(sql, accountRowMapper, accountId);
+	}
 }
\ No newline at end of file
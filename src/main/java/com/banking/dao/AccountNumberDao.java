@@ -0,0 +1,37 @@
+package com.banking.dao;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Shared counter behind account number allocation. Each call hands out a
+// whole block of values, so app nodes touch this row once per block rather
+// than once per account.
+public class AccountNumberDao {
+
+	private static final int SEQUENCE_ID = 1;
+
+	private JdbcTemplate jdbcTemplate;
+
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	// create the counter row if this is the first node to start
+	public void initSequence(long firstValue) {
+		try {
+			jdbcTemplate.update("INSERT INTO account_number_sequence (id, next_value) VALUES (?, ?)", SEQUENCE_ID,
+					firstValue);
+		} catch (DuplicateKeyException e) {
+			// already there
+		}
+	}
+
+	// reserve [first, first + size) and return first; must run in a transaction
+	public long reserveBlock(int size) {
+		long first = jdbcTemplate.queryForObject(
+				"SELECT next_value FROM account_number_sequence WHERE id = ? FOR UPDATE", Long.class, SEQUENCE_ID);
+		jdbcTemplate.update("UPDATE account_number_sequence SET next_value = ? WHERE id = ?", first + size,
+				SEQUENCE_ID);
+		return first;
+	}
+}
@@ -0,0 +1,44 @@
+package com.banking.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+// One JDBC batch insert that returns the generated keys in input order.
+// With rewriteBatchedStatements the MySQL driver sends a multi-row INSERT
+// and reports one key per row.
+final class BatchInserts {
+
+	private BatchInserts() {
+	}
+
+	static <T> ConnectionCallback<int[]> returningKeys(String sql, String keyColumn, List<T> rows,
+			ParameterizedPreparedStatementSetter<T> setter) {
+		return (Connection connection) -> {
+			try (PreparedStatement ps = connection.prepareStatement(sql, new String[] { keyColumn })) {
+				for (T row : rows) {
+					setter.setValues(ps, row);
+					ps.addBatch();
+				}
+				ps.executeBatch();
+
+				int[] ids = new int[rows.size()];
+				try (ResultSet keys = ps.getGeneratedKeys()) {
+					int i = 0;
+					while (keys.next() && i < ids.length) {
+						ids[i++] = keys.getInt(1);
+					}
+					if (i != ids.length) {
+						throw new SQLException("expected " + ids.length + " generated keys, got " + i);
+					}
+				}
+				return ids;
+			}
+		};
+	}
+}
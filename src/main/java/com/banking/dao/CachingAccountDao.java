@@ -0,0 +1,152 @@
+package com.banking.dao;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.banking.model.Account;
+import com.banking.model.Customer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+// AccountDao that keeps the immutable part of each account (number, type,
+// owner and the owner's customer row) in a size and TTL bounded cache.
+// Balances are never cached: every lookup reads the current balance by
+// primary key, so callers always see the committed value (or their own
+// uncommitted one inside a transaction) no matter which node wrote it.
+// Within one HTTP request an account is loaded at most once until it is
+// written, through the RequestContext identity map; every caller gets its own
+// copy. Customer rows are only changed outside the application, so after such
+// an edit the admin evicts that customer (AuthenticationController).
+public class CachingAccountDao extends AccountDao {
+
+	private long maximumSize = 100_000;
+	private long expireAfterWriteSeconds = 600;
+
+	private Cache<Integer, Account> metadataCache;
+
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	public void setExpireAfterWriteSeconds(long expireAfterWriteSeconds) {
+		this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+	}
+
+	public void init() {
+		metadataCache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public Account getAccountById(int accountId) {
+		// loaded earlier in this request and not written since
+		Account account = RequestContext.getAccount(accountId);
+		if (account != null) {
+			return copyOf(account, account.getBalance());
+		}
+
+		Account cached = metadataCache.getIfPresent(accountId);
+		if (cached == null) {
+			account = super.getAccountById(accountId);
+			metadataCache.put(accountId, copyOf(account, null));
+		} else {
+			account = copyOf(cached, getBalance(accountId));
+		}
+		RequestContext.putAccount(copyOf(account, account.getBalance()));
+		return account;
+	}
+
+	// no balance query: the metadata comes from the cache, the balance from the caller
+	@Override
+	public Account getAccountWithBalance(int accountId, BigDecimal balance) {
+		Account cached = metadataCache.getIfPresent(accountId);
+		if (cached == null) {
+			cached = super.getAccountById(accountId);
+			metadataCache.put(accountId, copyOf(cached, null));
+		}
+		RequestContext.putAccount(copyOf(cached, balance));
+		return copyOf(cached, balance);
+	}
+
+	@Override
+	public void updateBalance(int accountId, BigDecimal newBalance) {
+		RequestContext.evictAccount(accountId);
+		super.updateBalance(accountId, newBalance);
+	}
+
+	@Override
+	public int applyBalanceDelta(int accountId, int customerId, BigDecimal delta) {
+		RequestContext.evictAccount(accountId);
+		return super.applyBalanceDelta(accountId, customerId, delta);
+	}
+
+	@Override
+	public void applyBalanceDeltas(Map<Integer, BigDecimal> deltas) {
+		deltas.keySet()
+				.forEach(RequestContext::evictAccount);
+		super.applyBalanceDeltas(deltas);
+	}
+
+	// drop the accounts of one customer, after the customer row changed
+	@Override
+	public void evictCustomer(int customerId) {
+		metadataCache.asMap()
+				.values()
+				.removeIf(account -> account.getCustomerId() == customerId);
+	}
+
+	@Override
+	public void evictAll() {
+		metadataCache.invalidateAll();
+	}
+
+	public long getHitCount() {
+		return metadataCache.stats()
+				.hitCount();
+	}
+
+	public long getMissCount() {
+		return metadataCache.stats()
+				.missCount();
+	}
+
+	public long getEvictionCount() {
+		return metadataCache.stats()
+				.evictionCount();
+	}
+
+	public long getSize() {
+		return metadataCache.estimatedSize();
+	}
+
+	public CacheStats getStats() {
+		return metadataCache.stats();
+	}
+
+	// callers mutate the accounts they get back, so never hand out the cached instance
+	private Account copyOf(Account account, BigDecimal balance) {
+		Customer customer = account.getCustomer();
+		return Account.builder()
+				.accountId(account.getAccountId())
+				.customerId(account.getCustomerId())
+				.accountNumber(account.getAccountNumber())
+				.balance(balance)
+				.accountType(account.getAccountType())
+				.createdDate(account.getCreatedDate())
+				.customer(customer == null ? null
+						: Customer.builder()
+								.customerId(customer.getCustomerId())
+								.firstName(customer.getFirstName())
+								.lastName(customer.getLastName())
+								.email(customer.getEmail())
+								.phone(customer.getPhone())
+								.createdDate(customer.getCreatedDate())
+								.build())
+				.build();
+	}
+}
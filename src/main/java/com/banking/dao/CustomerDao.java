@@ -2,13 +2,16 @@ package com.banking.dao;
 
 import com.banking.model.Customer;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 
 import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class CustomerDao {
 
@@ -36,7 +39,7 @@ public class CustomerDao {
 		KeyHolder keyHolder = new GeneratedKeyHolder();
 
 		jdbcTemplate.update(connection -> {
-			PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			PreparedStatement ps = connection.prepareStatement(sql, new String[] { "customer_id" });
 
 			ps.setString(1, customer.getFirstName());
 			ps.setString(2, customer.getLastName());
@@ -58,4 +61,32 @@ public class CustomerDao {
 		List<Customer> customers = jdbcTemplate.query(sql, custRowMapper, email);
 		return customers.isEmpty() ? null : customers.get(0);
 	}
+
+	// customers with any of the given emails, in one query
+	public List<Customer> getCustomersByEmails(Collection<String> emails) {
+		if (emails.isEmpty()) {
+			return Collections.emptyList();
+		}
+		String placeholders = String.join(",", Collections.nCopies(emails.size(), "?"));
+		String sql = "SELECT * FROM customer WHERE email IN (" + placeholders + ")";
+		return jdbcTemplate.query(sql, custRowMapper, emails.toArray());
+	}
+
+	// insert several customers in one JDBC batch; returns their ids in input order
+	public int[] createCustomers(List<Customer> customers) {
+		String sql = "INSERT INTO customer (first_name, last_name, email, phone) VALUES (?, ?, ?, ?)";
+		return jdbcTemplate.execute(BatchInserts.returningKeys(sql, "customer_id", customers, (ps, customer) -> {
+			ps.setString(1, customer.getFirstName());
+			ps.setString(2, customer.getLastName());
+			ps.setString(3, customer.getEmail());
+			ps.setString(4, customer.getPhone());
+		}));
+	}
+
+	// stream every customer email without materialising the table
+	public void forEachEmail(Consumer<String> consumer) {
+		String sql = "SELECT email FROM customer";
+		jdbcTemplate.query(connection -> StreamingStatements.prepare(connection, sql),
+				(RowCallbackHandler) rs -> consumer.accept(rs.getString("email")));
+	}
 }
@@ -0,0 +1,54 @@
+package com.banking.dao;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.banking.model.IdempotencyRecord;
+
+// Idempotency keys shared by all app nodes. A key is claimed with an insert
+// before its request runs (response still null), completed with the stored
+// response afterwards, and released again if the request fails.
+public class IdempotencyKeyDao {
+
+	private JdbcTemplate jdbcTemplate;
+
+	private RowMapper<IdempotencyRecord> recordRowMapper = (rs, rowNum) -> IdempotencyRecord.builder()
+			.idempotencyKey(rs.getString("idempotency_key"))
+			.fingerprint(rs.getString("fingerprint"))
+			.response(rs.getString("response"))
+			.expiresAt(rs.getTimestamp("expires_at"))
+			.build();
+
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	// fails with a duplicate key if the key is already claimed
+	public void claim(String idempotencyKey, String fingerprint, Timestamp expiresAt) {
+		String sql = "INSERT INTO idempotency_key (idempotency_key, fingerprint, expires_at) VALUES (?, ?, ?)";
+		jdbcTemplate.update(sql, idempotencyKey, fingerprint, expiresAt);
+	}
+
+	public IdempotencyRecord getRecord(String idempotencyKey) {
+		String sql = "SELECT * FROM idempotency_key WHERE idempotency_key = ?";
+		List<IdempotencyRecord> records = jdbcTemplate.query(sql, recordRowMapper, idempotencyKey);
+		return records.isEmpty() ? null : records.get(0);
+	}
+
+	public void complete(String idempotencyKey, String response) {
+		String sql = "UPDATE idempotency_key SET response = ? WHERE idempotency_key = ?";
+		jdbcTemplate.update(sql, response, idempotencyKey);
+	}
+
+	public void release(String idempotencyKey) {
+		jdbcTemplate.update("DELETE FROM idempotency_key WHERE idempotency_key = ?", idempotencyKey);
+	}
+
+	// returns the number of keys removed
+	public int deleteExpired(Timestamp now) {
+		return jdbcTemplate.update("DELETE FROM idempotency_key WHERE expires_at < ?", now);
+	}
+}
@@ -0,0 +1,39 @@
+package com.banking.dao;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Checkpoints of the interest accrual batch: one row per account-id range
+// credited for an accrual date, written in the same transaction as the
+// interest itself so a restarted run skips exactly the finished ranges.
+public class InterestAccrualDao {
+
+	private JdbcTemplate jdbcTemplate;
+
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	// first account ids of the ranges already credited for the date
+	public Set<Integer> getCompletedRanges(LocalDate accrualDate) {
+		String sql = "SELECT first_account_id FROM interest_accrual_checkpoint WHERE accrual_date = ?";
+		Set<Integer> completed = new HashSet<>();
+		jdbcTemplate.query(sql, rs -> {
+			completed.add(rs.getInt(1));
+		}, Date.valueOf(accrualDate));
+		return completed;
+	}
+
+	// fails with a duplicate key if another run already credited this range
+	public void markRangeCompleted(LocalDate accrualDate, int firstAccountId, int lastAccountId, int accounts,
+			BigDecimal interest) {
+		String sql = "INSERT INTO interest_accrual_checkpoint "
+				+ "(accrual_date, first_account_id, last_account_id, accounts, interest) VALUES (?, ?, ?, ?, ?)";
+		jdbcTemplate.update(sql, Date.valueOf(accrualDate), firstAccountId, lastAccountId, accounts, interest);
+	}
+}
@@ -0,0 +1,43 @@
+package com.banking.dao;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.banking.model.PayrollChunk;
+
+// Chunks of a payroll batch that have been posted, keyed by the client's
+// batch id and the position of the chunk's first credit. A row is written in
+// the same transaction as the chunk's postings, so a resubmitted batch skips
+// exactly the chunks that committed.
+public class PayrollBatchDao {
+
+	private JdbcTemplate jdbcTemplate;
+
+	private RowMapper<PayrollChunk> chunkRowMapper = (rs, rowNum) -> PayrollChunk.builder()
+			.batchId(rs.getString("batch_id"))
+			.firstItem(rs.getInt("first_item"))
+			.lastItem(rs.getInt("last_item"))
+			.fromAccountId(rs.getInt("from_account_id"))
+			.amount(rs.getBigDecimal("amount"))
+			.build();
+
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public List<PayrollChunk> getCompletedChunks(String batchId) {
+		String sql = "SELECT * FROM payroll_batch_chunk WHERE batch_id = ? ORDER BY first_item";
+		return jdbcTemplate.query(sql, chunkRowMapper, batchId);
+	}
+
+	// fails with a duplicate key if another run already posted this chunk
+	public void markChunkCompleted(String batchId, int firstItem, int lastItem, int fromAccountId,
+			BigDecimal amount) {
+		String sql = "INSERT INTO payroll_batch_chunk (batch_id, first_item, last_item, from_account_id, amount) "
+				+ "VALUES (?, ?, ?, ?, ?)";
+		jdbcTemplate.update(sql, batchId, firstItem, lastItem, fromAccountId, amount);
+	}
+}
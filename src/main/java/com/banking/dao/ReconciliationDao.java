@@ -0,0 +1,70 @@
+package com.banking.dao;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.banking.model.ReconciliationCheckpoint;
+import com.banking.model.Transaction;
+
+// Per-account high-water marks of the reconciliation job: the last ledger
+// line whose balance_after has been verified, and that balance.
+public class ReconciliationDao {
+
+	private JdbcTemplate jdbcTemplate;
+
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	// checkpoints of the accounts in [fromAccountId, toAccountId), by account id
+	public Map<Integer, ReconciliationCheckpoint> getCheckpoints(int fromAccountId, int toAccountId) {
+		String sql = "SELECT account_id, last_transaction_id, last_balance_after FROM reconciliation_checkpoint "
+				+ "WHERE account_id >= ? AND account_id < ?";
+		Map<Integer, ReconciliationCheckpoint> checkpoints = new HashMap<>();
+		jdbcTemplate.query(sql, rs -> {
+			checkpoints.put(rs.getInt("account_id"), ReconciliationCheckpoint.builder()
+					.accountId(rs.getInt("account_id"))
+					.lastTransactionId(rs.getInt("last_transaction_id"))
+					.lastBalanceAfter(rs.getBigDecimal("last_balance_after"))
+					.build());
+		}, fromAccountId, toAccountId);
+		return checkpoints;
+	}
+
+	// ledger lines of the range newer than each account's checkpoint (all lines when
+	// full is true), in account then transaction id order, handed over one at a time
+	public void forEachUnverifiedTransaction(int fromAccountId, int toAccountId, boolean full,
+			Consumer<Transaction> consumer) {
+		String sql = "SELECT t.transaction_id, t.account_id, t.transaction_type, t.amount, t.balance_after "
+				+ "FROM transaction t LEFT JOIN reconciliation_checkpoint r ON r.account_id = t.account_id "
+				+ "WHERE t.account_id >= ? AND t.account_id < ? "
+				+ "AND (? OR t.transaction_id > COALESCE(r.last_transaction_id, 0)) "
+				+ "ORDER BY t.account_id, t.transaction_id";
+		jdbcTemplate.query(sql, rs -> {
+			consumer.accept(Transaction.builder()
+					.transactionId(rs.getInt("transaction_id"))
+					.accountId(rs.getInt("account_id"))
+					.transactionType(rs.getString("transaction_type"))
+					.amount(rs.getBigDecimal("amount"))
+					.balanceAfter(rs.getBigDecimal("balance_after"))
+					.build());
+		}, fromAccountId, toAccountId, full);
+	}
+
+	// insert or move forward the checkpoints in one JDBC batch
+	public void saveCheckpoints(List<ReconciliationCheckpoint> checkpoints) {
+		String sql = "INSERT INTO reconciliation_checkpoint (account_id, last_transaction_id, last_balance_after) "
+				+ "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE "
+				+ "last_transaction_id = VALUES(last_transaction_id), last_balance_after = VALUES(last_balance_after), "
+				+ "verified_at = CURRENT_TIMESTAMP";
+		jdbcTemplate.batchUpdate(sql, checkpoints, checkpoints.size(), (ps, checkpoint) -> {
+			ps.setInt(1, checkpoint.getAccountId());
+			ps.setInt(2, checkpoint.getLastTransactionId());
+			ps.setBigDecimal(3, checkpoint.getLastBalanceAfter());
+		});
+	}
+}
@@ -0,0 +1,84 @@
+package com.banking.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.banking.model.Account;
+
+// Per-request unit of work, bound to the servlet thread by RequestContextInterceptor.
+// Holds an identity map of accounts loaded during the request and counts the SQL
+// statements issued, so repeated lookups and N+1 patterns show up in the logs.
+// Outside a request (background jobs) every method is a no-op.
+// An async handler carries it to the executor thread and back (see
+// CallableContextInterceptor); only one thread holds it at a time.
+public final class RequestContext {
+
+	private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+	private final Map<Integer, Account> accounts = new HashMap<>();
+	private int statementCount;
+	private int accountHits;
+
+	private RequestContext() {
+	}
+
+	public static void begin() {
+		CURRENT.set(new RequestContext());
+	}
+
+	public static RequestContext end() {
+		RequestContext context = CURRENT.get();
+		CURRENT.remove();
+		return context;
+	}
+
+	public static RequestContext current() {
+		return CURRENT.get();
+	}
+
+	// continue a request's context on this thread
+	public static void resume(RequestContext context) {
+		CURRENT.set(context);
+	}
+
+	public static void statementIssued() {
+		RequestContext context = CURRENT.get();
+		if (context != null) {
+			context.statementCount++;
+		}
+	}
+
+	static Account getAccount(int accountId) {
+		RequestContext context = CURRENT.get();
+		if (context == null) {
+			return null;
+		}
+		Account account = context.accounts.get(accountId);
+		if (account != null) {
+			context.accountHits++;
+		}
+		return account;
+	}
+
+	static void putAccount(Account account) {
+		RequestContext context = CURRENT.get();
+		if (context != null) {
+			context.accounts.put(account.getAccountId(), account);
+		}
+	}
+
+	static void evictAccount(int accountId) {
+		RequestContext context = CURRENT.get();
+		if (context != null) {
+			context.accounts.remove(accountId);
+		}
+	}
+
+	public int getStatementCount() {
+		return statementCount;
+	}
+
+	public int getAccountHits() {
+		return accountHits;
+	}
+}
@@ -0,0 +1,52 @@
+package com.banking.dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// DataSource wrapper that reports every statement created on its connections
+// to the current RequestContext. A JDBC batch counts as one statement.
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+	public StatementCountingDataSource() {
+	}
+
+	public StatementCountingDataSource(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return wrap(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return wrap(super.getConnection(username, password));
+	}
+
+	private Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					String name = method.getName();
+					if (name.equals("equals")) {
+						return proxy == args[0];
+					}
+					if (name.equals("prepareStatement") || name.equals("createStatement")
+							|| name.equals("prepareCall")) {
+						RequestContext.statementIssued();
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException e) {
+						throw e.getTargetException();
+					}
+				});
+	}
+}
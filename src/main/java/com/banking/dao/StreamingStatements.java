@@ -0,0 +1,27 @@
+package com.banking.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Forward-only, read-only statements for walking large result sets row by row.
+// MySQL Connector/J only streams with fetchSize Integer.MIN_VALUE; other drivers
+// (the H2 stand-in used by the benchmarks) take an ordinary fetch size.
+final class StreamingStatements {
+
+	private static final int DEFAULT_FETCH_SIZE = 1_000;
+
+	private StreamingStatements() {
+	}
+
+	static PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+		PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+				ResultSet.CONCUR_READ_ONLY);
+		boolean mysql = connection.getMetaData()
+				.getDriverName()
+				.startsWith("MySQL");
+		ps.setFetchSize(mysql ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE);
+		return ps;
+	}
+}
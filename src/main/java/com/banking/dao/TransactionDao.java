@@ -1,7 +1,8 @@
 package com.banking.dao;
 
 import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -42,7 +43,8 @@ public class TransactionDao {
 
 		jdbcTemplate.update((connection) -> {
 
-			PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			// name the key column so drivers that also return defaulted columns give a single key
+			PreparedStatement ps = connection.prepareStatement(sql, new String[] { "transaction_id" });
 			ps.setInt(1, transaction.getAccountId());
 			ps.setString(2, transaction.getTransactionType());
 			ps.setBigDecimal(3, transaction.getAmount());
@@ -55,9 +57,102 @@ public class TransactionDao {
 				.intValue();
 	}
 
+	// insert several ledger lines in one JDBC batch
+	public void createTransactions(List<Transaction> transactions) {
+		String sql = "INSERT INTO transaction(account_id, transaction_type, amount, description, balance_after )"
+				+ "VALUES (?, ?,?,?,?)";
+
+		jdbcTemplate.batchUpdate(sql, transactions, transactions.size(), (ps, transaction) -> {
+			ps.setInt(1, transaction.getAccountId());
+			ps.setString(2, transaction.getTransactionType());
+			ps.setBigDecimal(3, transaction.getAmount());
+			ps.setString(4, transaction.getDescription());
+			ps.setBigDecimal(5, transaction.getBalanceAfter());
+		});
+	}
+
+	// insert several ledger lines in one JDBC batch and return their generated ids,
+	// in the same order as the input
+	public int[] createTransactionsReturningIds(List<Transaction> transactions) {
+		String sql = "INSERT INTO transaction(account_id, transaction_type, amount, description, balance_after )"
+				+ "VALUES (?, ?,?,?,?)";
+
+		return jdbcTemplate.execute(BatchInserts.returningKeys(sql, "transaction_id", transactions,
+				(ps, transaction) -> {
+					ps.setInt(1, transaction.getAccountId());
+					ps.setString(2, transaction.getTransactionType());
+					ps.setBigDecimal(3, transaction.getAmount());
+					ps.setString(4, transaction.getDescription());
+					ps.setBigDecimal(5, transaction.getBalanceAfter());
+				}));
+	}
+
 	public List<Transaction> getTransactionsByAccountId(int accountId) {
 		String sql = "SELECT * FROM transaction WHERE account_id = ? ORDER BY transaction_date DESC";
 		return jdbcTemplate.query(sql, transactionRowMapper, accountId);
 	}
 
+	// oldest-first chunk of an account's ledger inside [fromDate, toDate), after the (date, id) key.
+	// each chunk is a short indexed query, so an export never pins a connection between chunks.
+	public List<Transaction> getStatementChunk(int accountId, Timestamp fromDate, Timestamp toDate,
+			Timestamp afterDate, int afterTransactionId, int limit) {
+		String sql = "SELECT * FROM transaction WHERE account_id = ? "
+				+ "AND transaction_date >= ? AND transaction_date < ? "
+				+ "AND (transaction_date > ? OR (transaction_date = ? AND transaction_id > ?)) "
+				+ "ORDER BY transaction_date ASC, transaction_id ASC LIMIT ?";
+		return jdbcTemplate.query(sql, transactionRowMapper, accountId, fromDate, toDate, afterDate, afterDate,
+				afterTransactionId, limit);
+	}
+
+	// newest transactions across several accounts: each account's newest rows come
+	// from the (account_id, transaction_date, transaction_id) index, so only
+	// limit rows per account are read and sorted instead of the whole ledger
+	public List<Transaction> getRecentTransactionsByAccountIds(List<Integer> accountIds, int limit) {
+		if (accountIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		StringBuilder sql = new StringBuilder("SELECT * FROM (");
+		Object[] args = new Object[accountIds.size() * 2 + 1];
+		for (int i = 0; i < accountIds.size(); i++) {
+			if (i > 0) {
+				sql.append(" UNION ALL ");
+			}
+			sql.append("(SELECT * FROM transaction WHERE account_id = ? "
+					+ "ORDER BY transaction_date DESC, transaction_id DESC LIMIT ?)");
+			args[i * 2] = accountIds.get(i);
+			args[i * 2 + 1] = limit;
+		}
+		sql.append(") recent ORDER BY transaction_date DESC, transaction_id DESC LIMIT ?");
+		args[args.length - 1] = limit;
+		return jdbcTemplate.query(sql.toString(), transactionRowMapper, args);
+	}
+
+	// keyset pages, served by an index on (account_id, transaction_date, transaction_id)
+
+	// newest transactions of an account
+	public List<Transaction> getLatestTransactions(int accountId, int limit) {
+		String sql = "SELECT * FROM transaction WHERE account_id = ? "
+				+ "ORDER BY transaction_date DESC, transaction_id DESC LIMIT ?";
+		return jdbcTemplate.query(sql, transactionRowMapper, accountId, limit);
+	}
+
+	// transactions older than the given (date, id) key, newest first
+	public List<Transaction> getTransactionsBefore(int accountId, Timestamp date, int transactionId, int limit) {
+		String sql = "SELECT * FROM transaction WHERE account_id = ? "
+				+ "AND (transaction_date < ? OR (transaction_date = ? AND transaction_id < ?)) "
+				+ "ORDER BY transaction_date DESC, transaction_id DESC LIMIT ?";
+		return jdbcTemplate.query(sql, transactionRowMapper, accountId, date, date, transactionId, limit);
+	}
+
+	// transactions newer than the given (date, id) key, newest first
+	public List<Transaction> getTransactionsAfter(int accountId, Timestamp date, int transactionId, int limit) {
+		String sql = "SELECT * FROM transaction WHERE account_id = ? "
+				+ "AND (transaction_date > ? OR (transaction_date = ? AND transaction_id > ?)) "
+				+ "ORDER BY transaction_date ASC, transaction_id ASC LIMIT ?";
+		List<Transaction> transactions = jdbcTemplate.query(sql, transactionRowMapper, accountId, date, date,
+				transactionId, limit);
+		Collections.reverse(transactions);
+		return transactions;
+	}
+
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.banking.dao;
 
 import com.banking.model.User;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
@@ -9,6 +10,7 @@ import org.springframework.jdbc.support.KeyHolder;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public class UserDao {
 
@@ -38,7 +40,7 @@ public class UserDao {
 		KeyHolder keyHolder = new GeneratedKeyHolder();
 
 		jdbcTemplate.update(connection -> {
-			PreparedStatement ps = connection.prepareStatement(sql);
+			PreparedStatement ps = connection.prepareStatement(sql, new String[] { "user_id" });
 			ps.setString(1, user.getUsername());
 			ps.setString(2, user.getPassword());
 			ps.setString(3, user.getEmail());
@@ -80,4 +82,16 @@ public class UserDao {
 		Integer count = jdbcTemplate.queryForObject(sql, Integer.class, email);
 		return count != null && count > 0;
 	}
+
+	public void updatePassword(int userId, String password) {
+		String sql = "UPDATE user SET password=? WHERE user_id=?";
+		jdbcTemplate.update(sql, password, userId);
+	}
+
+	// stream every username and email without materialising the table
+	public void forEachUsernameAndEmail(BiConsumer<String, String> consumer) {
+		String sql = "SELECT username, email FROM user";
+		jdbcTemplate.query(connection -> StreamingStatements.prepare(connection, sql),
+				(RowCallbackHandler) rs -> consumer.accept(rs.getString("username"), rs.getString("email")));
+	}
 }
\ No newline at end of file
@@ -4,20 +4,34 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
+
+import com.banking.model.SessionPrincipal;
+import com.banking.service.AuthTokenService;
 
 public class AuthenticationInterceptor implements HandlerInterceptor {
 
 	private static final Logger logger = LoggerFactory.getLogger(AuthenticationInterceptor.class);
 
+	private AuthTokenService authTokenService;
+
+	public void setAuthTokenService(AuthTokenService authTokenService) {
+		this.authTokenService = authTokenService;
+	}
+
 	@Override
 	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
 			throws Exception {
 
+		// an async handler's second dispatch was authenticated by its first
+		if (request.getDispatcherType() == DispatcherType.ASYNC) {
+			return true;
+		}
+
 		String uri = request.getRequestURI();
-		logger.info("URI :"+uri);
+		logger.debug("URI : {}", uri);
 
 		// Allow access to login, register, and static resources
 		if (uri.endsWith("/login") || uri.endsWith("/register") || uri.contains("/css/") || uri.contains("/js/")
@@ -25,14 +39,36 @@ public class AuthenticationInterceptor implements HandlerInterceptor {
 			return true;
 		}
 
-		HttpSession session = request.getSession(false);
-
-		if (session == null || session.getAttribute("loggedInUser") == null) {
+		boolean tokenMode = authTokenService != null && authTokenService.isEnabled();
+		SessionPrincipal principal = tokenMode ? fromToken(request, response)
+				: SessionPrincipal.of(request.getSession(false));
+		if (principal == null) {
 			logger.warn("Unauthorized access attempt: {}", uri);
-			response.sendRedirect(request.getContextPath() + "/login");
+			// API callers get a status, browsers the login page
+			if (uri.startsWith(request.getContextPath() + "/api/") || request.getHeader("Authorization") != null) {
+				response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+			} else {
+				response.sendRedirect(request.getContextPath() + "/login");
+			}
 			return false;
 		}
 
+		// controllers read it from here, whichever mode resolved it
+		request.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, principal);
 		return true;
 	}
-}
\ No newline at end of file
+
+	// verify the signed token; no session, no database. a cookie past half its
+	// lifetime is reissued, so an active user stays logged in.
+	private SessionPrincipal fromToken(HttpServletRequest request, HttpServletResponse response) {
+		AuthTokenService.Token token = authTokenService.verify(authTokenService.tokenFrom(request));
+		if (token == null) {
+			return null;
+		}
+		long remaining = token.getExpiresAt() - System.currentTimeMillis() / 1000;
+		if (remaining < authTokenService.getTtlSeconds() / 2 && request.getHeader("Authorization") == null) {
+			authTokenService.addTokenCookie(request, response, authTokenService.issue(token.getPrincipal()));
+		}
+		return token.getPrincipal();
+	}
+}
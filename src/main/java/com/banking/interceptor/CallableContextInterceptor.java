@@ -0,0 +1,54 @@
+package com.banking.interceptor;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.slf4j.MDC;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import com.banking.dao.RequestContext;
+
+// Runs a handler's Callable on the request executor with the request's
+// RequestContext and log MDC, so its SQL statements are counted and its log
+// lines carry the request id, then takes both off the pooled thread again.
+public class CallableContextInterceptor implements CallableProcessingInterceptor {
+
+	private static final String MDC_ATTRIBUTE = CallableContextInterceptor.class.getName() + ".mdc";
+
+	// on the container thread, before the handoff
+	@Override
+	public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) throws Exception {
+		request.setAttribute(MDC_ATTRIBUTE, MDC.getCopyOfContextMap(), RequestAttributes.SCOPE_REQUEST);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> void preProcess(NativeWebRequest request, Callable<T> task) throws Exception {
+		RequestContext.resume((RequestContext) request.getAttribute(RequestContextInterceptor.CONTEXT_ATTRIBUTE,
+				RequestAttributes.SCOPE_REQUEST));
+		Map<String, String> mdc = (Map<String, String>) request.getAttribute(MDC_ATTRIBUTE,
+				RequestAttributes.SCOPE_REQUEST);
+		if (mdc != null) {
+			MDC.setContextMap(mdc);
+		}
+	}
+
+	// on a container thread; the Callable may still be running with the context,
+	// so the timeout dispatch must not pick it up as well
+	@Override
+	public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) throws Exception {
+		request.setAttribute(RequestContextInterceptor.TIMED_OUT_ATTRIBUTE, Boolean.TRUE,
+				RequestAttributes.SCOPE_REQUEST);
+		return RESULT_NONE;
+	}
+
+	// runs even when the Callable throws
+	@Override
+	public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult)
+			throws Exception {
+		RequestContext.end();
+		MDC.clear();
+	}
+}
@@ -0,0 +1,49 @@
+package com.banking.interceptor;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import com.banking.interceptor.ConcurrencyLimitInterceptor.Permit;
+
+// Holds an async request's ConcurrencyLimitInterceptor permit for as long as
+// its Callable runs. After the async timeout the client already has its 503,
+// but the Callable keeps its connection until it returns; giving the permit
+// back at that point would let another request in on top of it.
+public class ConcurrencyLimitCallableInterceptor implements CallableProcessingInterceptor {
+
+	@Override
+	public <T> void preProcess(NativeWebRequest request, Callable<T> task) throws Exception {
+		Permit permit = permit(request);
+		if (permit != null) {
+			permit.start();
+		}
+	}
+
+	// on the request executor once the Callable returns or throws
+	@Override
+	public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult)
+			throws Exception {
+		Permit permit = permit(request);
+		if (permit != null) {
+			permit.release();
+		}
+	}
+
+	// on a container thread; covers a Callable that was never started, e.g. one
+	// still queued on the executor when the request timed out
+	@Override
+	public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) throws Exception {
+		Permit permit = permit(request);
+		if (permit != null) {
+			permit.abandon();
+		}
+	}
+
+	private static Permit permit(NativeWebRequest request) {
+		return (Permit) request.getAttribute(ConcurrencyLimitInterceptor.PERMIT_ATTRIBUTE,
+				RequestAttributes.SCOPE_REQUEST);
+	}
+}
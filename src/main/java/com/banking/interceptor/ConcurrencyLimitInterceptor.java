@@ -0,0 +1,199 @@
+package com.banking.interceptor;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.banking.metrics.MetricsRegistry;
+
+// Caps the requests in progress per endpoint ("POST /transfer"), so a slow
+// database backs up one endpoint instead of taking every thread and
+// connection: over the limit a request gets 503 with Retry-After at once.
+// The permit is held until the request's work is over: for an async handler
+// that is when its Callable returns (ConcurrencyLimitCallableInterceptor),
+// which can be long after the async timeout has already answered the client.
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitInterceptor.class);
+
+	static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+	// under overload every request is turned away: log a summary, not each one
+	private static final long WARN_INTERVAL_NANOS = 10_000_000_000L;
+
+	private MetricsRegistry metricsRegistry;
+	private Map<String, Integer> limits = Collections.emptyMap();
+	private int defaultLimit;
+	private int retryAfterSeconds = 1;
+
+	private final ConcurrentHashMap<String, Limit> endpoints = new ConcurrentHashMap<>();
+
+	public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	// "METHOD pattern" -> concurrent requests, e.g. "POST /transfer" -> 6
+	public void setLimits(Map<String, Integer> limits) {
+		this.limits = limits;
+	}
+
+	// for endpoints not in limits; 0 leaves them unlimited
+	public void setDefaultLimit(int defaultLimit) {
+		this.defaultLimit = defaultLimit;
+	}
+
+	public void setRetryAfterSeconds(int retryAfterSeconds) {
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws Exception {
+		// the async dispatch of a request that already holds its permit
+		if (request.getDispatcherType() != DispatcherType.REQUEST) {
+			return true;
+		}
+
+		Limit limit = limitFor(endpoint(request));
+		if (limit == null) {
+			return true;
+		}
+		if (!limit.permits.tryAcquire()) {
+			long rejected = limit.rejected.incrementAndGet();
+			if (limit.warnDue()) {
+				logger.warn("concurrency limit reached: endpoint={}, limit={}, rejectedTotal={}", limit.endpoint,
+						limit.size, rejected);
+			}
+			response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return false;
+		}
+		request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limit));
+		return true;
+	}
+
+	// the handler returned a Callable: its permit now goes with the Callable
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) throws Exception {
+		Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+		if (permit != null) {
+			permit.async = true;
+		}
+	}
+
+	// called once, on the last dispatch
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) throws Exception {
+		Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+		if (permit != null && !permit.async) {
+			request.removeAttribute(PERMIT_ATTRIBUTE);
+			permit.release();
+		}
+	}
+
+	public int getInFlight(String endpoint) {
+		Limit limit = endpoints.get(endpoint);
+		return limit == null ? 0 : limit.size - limit.permits.availablePermits();
+	}
+
+	public long getRejectedCount(String endpoint) {
+		Limit limit = endpoints.get(endpoint);
+		return limit == null ? 0 : limit.rejected.get();
+	}
+
+	// the mapping pattern, not the raw URI, so path variables share one limit
+	private static String endpoint(HttpServletRequest request) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		return request.getMethod() + " " + (pattern != null ? pattern : "unmapped");
+	}
+
+	private Limit limitFor(String endpoint) {
+		Limit limit = endpoints.get(endpoint);
+		if (limit != null) {
+			return limit;
+		}
+		Integer size = limits.getOrDefault(endpoint, defaultLimit);
+		if (size == null || size <= 0) {
+			return null;
+		}
+		return endpoints.computeIfAbsent(endpoint, key -> {
+			Limit created = new Limit(key, size);
+			if (metricsRegistry != null) {
+				metricsRegistry.gauge("http_requests_in_flight", "Requests in progress per limited endpoint",
+						() -> getInFlight(key), "endpoint", key);
+				metricsRegistry.gauge("http_requests_limited", "Requests rejected by the endpoint concurrency limit",
+						() -> getRejectedCount(key), "endpoint", key);
+			}
+			return created;
+		});
+	}
+
+	// one request's permit, given back exactly once by whichever path sees its work end
+	static final class Permit {
+
+		private static final int WAITING = 0;
+		private static final int RUNNING = 1;
+		private static final int RELEASED = 2;
+
+		private final Limit limit;
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+		private volatile boolean async;
+
+		private Permit(Limit limit) {
+			this.limit = limit;
+		}
+
+		// the Callable starts on the request executor
+		void start() {
+			state.compareAndSet(WAITING, RUNNING);
+		}
+
+		void release() {
+			if (state.getAndSet(RELEASED) != RELEASED) {
+				limit.permits.release();
+			}
+		}
+
+		// the async request is over; a Callable still running keeps the permit until it returns
+		void abandon() {
+			if (state.compareAndSet(WAITING, RELEASED)) {
+				limit.permits.release();
+			}
+		}
+	}
+
+	private static final class Limit {
+
+		private final String endpoint;
+		private final int size;
+		private final Semaphore permits;
+		private final AtomicLong rejected = new AtomicLong();
+		private final AtomicLong nextWarn = new AtomicLong(System.nanoTime());
+
+		private Limit(String endpoint, int size) {
+			this.endpoint = endpoint;
+			this.size = size;
+			this.permits = new Semaphore(size);
+		}
+
+		// true for one caller per WARN_INTERVAL_NANOS
+		private boolean warnDue() {
+			long now = System.nanoTime();
+			long due = nextWarn.get();
+			return now - due >= 0 && nextWarn.compareAndSet(due, now + WARN_INTERVAL_NANOS);
+		}
+	}
+}
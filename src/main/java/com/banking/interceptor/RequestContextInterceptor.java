@@ -0,0 +1,96 @@
+package com.banking.interceptor;
+
+import java.util.UUID;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.banking.dao.RequestContext;
+
+// Binds a RequestContext and the request id to the thread for the whole
+// request. An async handler is dispatched twice; the context started by the
+// first dispatch is parked on the request in between and picked up again,
+// except after a timeout, when the Callable may still be using it.
+public class RequestContextInterceptor implements AsyncHandlerInterceptor {
+
+	private static final Logger logger = LoggerFactory.getLogger(RequestContextInterceptor.class);
+
+	private static final String REQUEST_ID_HEADER = "X-Request-Id";
+	private static final String REQUEST_ID_KEY = "requestId";
+	static final String CONTEXT_ATTRIBUTE = RequestContextInterceptor.class.getName() + ".context";
+	private static final String REQUEST_ID_ATTRIBUTE = RequestContextInterceptor.class.getName() + ".requestId";
+	// set by CallableContextInterceptor when the async timeout fires
+	static final String TIMED_OUT_ATTRIBUTE = RequestContextInterceptor.class.getName() + ".timedOut";
+
+	private int statementWarnThreshold = 20;
+
+	public void setStatementWarnThreshold(int statementWarnThreshold) {
+		this.statementWarnThreshold = statementWarnThreshold;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws Exception {
+		if (request.getDispatcherType() == DispatcherType.ASYNC) {
+			if (request.getAttribute(TIMED_OUT_ATTRIBUTE) == null) {
+				RequestContext.resume((RequestContext) request.getAttribute(CONTEXT_ATTRIBUTE));
+			}
+			MDC.put(REQUEST_ID_KEY, (String) request.getAttribute(REQUEST_ID_ATTRIBUTE));
+			return true;
+		}
+
+		RequestContext.begin();
+		request.setAttribute(CONTEXT_ATTRIBUTE, RequestContext.current());
+
+		// correlate every log line of this request; reuse the caller's id when it sends one
+		String requestId = request.getHeader(REQUEST_ID_HEADER);
+		if (requestId == null || !requestId.matches("[A-Za-z0-9._-]{1,64}")) {
+			requestId = UUID.randomUUID()
+					.toString();
+		}
+		MDC.put(REQUEST_ID_KEY, requestId);
+		request.setAttribute(REQUEST_ID_ATTRIBUTE, requestId);
+		response.setHeader(REQUEST_ID_HEADER, requestId);
+		return true;
+	}
+
+	// the handler went async: free this container thread, the context stays on the request
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) throws Exception {
+		RequestContext.end();
+		MDC.remove(REQUEST_ID_KEY);
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) throws Exception {
+		RequestContext context = RequestContext.end();
+		if (context == null) {
+			if (request.getAttribute(TIMED_OUT_ATTRIBUTE) != null) {
+				logger.warn("request timed out: uri={}", request.getRequestURI());
+			}
+			MDC.remove(REQUEST_ID_KEY);
+			return;
+		}
+
+		if (context.getStatementCount() > statementWarnThreshold) {
+			logger.warn("high sql statement count: uri={}, sqlStatements={}, accountCacheHits={}",
+					request.getRequestURI(),
+					context.getStatementCount(),
+					context.getAccountHits());
+		} else {
+			logger.info("request complete: uri={}, sqlStatements={}, accountCacheHits={}",
+					request.getRequestURI(),
+					context.getStatementCount(),
+					context.getAccountHits());
+		}
+		MDC.remove(REQUEST_ID_KEY);
+	}
+}
@@ -0,0 +1,50 @@
+package com.banking.interceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.banking.metrics.MetricsRegistry;
+
+// Records request latency per endpoint, from preHandle to afterCompletion
+// (so view rendering is included, and for an async handler the time it
+// waited for the request executor)
+public class TimingInterceptor implements HandlerInterceptor {
+
+	private static final String START_ATTRIBUTE = TimingInterceptor.class.getName() + ".start";
+
+	private MetricsRegistry metricsRegistry;
+
+	public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws Exception {
+		// an async dispatch keeps the start of the original request
+		if (request.getAttribute(START_ATTRIBUTE) == null) {
+			request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) throws Exception {
+		Long start = (Long) request.getAttribute(START_ATTRIBUTE);
+		if (start == null) {
+			return;
+		}
+
+		// use the mapping pattern, not the raw URI, to keep the label set bounded
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String endpoint = pattern != null ? pattern.toString() : "unmapped";
+
+		metricsRegistry.timer("http_request_duration_seconds", "Request latency per endpoint", "method",
+				request.getMethod(), "endpoint", endpoint, "status", String.valueOf(response.getStatus()))
+				.record(System.nanoTime() - start);
+	}
+}
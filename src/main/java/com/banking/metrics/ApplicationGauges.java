@@ -0,0 +1,87 @@
+package com.banking.metrics;
+
+import java.util.function.ToIntFunction;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.banking.dao.CachingAccountDao;
+import com.banking.service.PasswordHasher;
+import com.banking.service.RegistrationFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+// Registers connection pool and component gauges with the MetricsRegistry
+public class ApplicationGauges {
+
+	private MetricsRegistry metricsRegistry;
+	private HikariDataSource dataSource;
+	private CachingAccountDao accountDao;
+	private PasswordHasher passwordHasher;
+	private RegistrationFilter registrationFilter;
+	private ThreadPoolTaskExecutor requestExecutor;
+
+	public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	public void setDataSource(HikariDataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public void setAccountDao(CachingAccountDao accountDao) {
+		this.accountDao = accountDao;
+	}
+
+	public void setPasswordHasher(PasswordHasher passwordHasher) {
+		this.passwordHasher = passwordHasher;
+	}
+
+	public void setRegistrationFilter(RegistrationFilter registrationFilter) {
+		this.registrationFilter = registrationFilter;
+	}
+
+	public void setRequestExecutor(ThreadPoolTaskExecutor requestExecutor) {
+		this.requestExecutor = requestExecutor;
+	}
+
+	public void init() {
+		String pool = dataSource.getPoolName();
+		metricsRegistry.gauge("hikari_connections_active", "Connections in use", () -> poolValue(HikariPoolMXBean::getActiveConnections),
+				"pool", pool);
+		metricsRegistry.gauge("hikari_connections_idle", "Idle connections", () -> poolValue(HikariPoolMXBean::getIdleConnections),
+				"pool", pool);
+		metricsRegistry.gauge("hikari_connections_total", "Open connections", () -> poolValue(HikariPoolMXBean::getTotalConnections),
+				"pool", pool);
+		metricsRegistry.gauge("hikari_connections_pending", "Threads waiting for a connection",
+				() -> poolValue(HikariPoolMXBean::getThreadsAwaitingConnection), "pool", pool);
+		metricsRegistry.gauge("hikari_connections_max", "Maximum pool size", dataSource::getMaximumPoolSize, "pool",
+				pool);
+
+		metricsRegistry.gauge("account_cache_hits", "Account metadata cache hits", accountDao::getHitCount);
+		metricsRegistry.gauge("account_cache_misses", "Account metadata cache misses", accountDao::getMissCount);
+		metricsRegistry.gauge("account_cache_evictions", "Account metadata cache evictions",
+				accountDao::getEvictionCount);
+		metricsRegistry.gauge("account_cache_size", "Account metadata cache entries", accountDao::getSize);
+
+		metricsRegistry.gauge("password_hasher_queue_depth", "Password checks waiting for a thread",
+				passwordHasher::getQueueDepth);
+		metricsRegistry.gauge("password_hasher_active", "Password checks running", passwordHasher::getActiveCount);
+		metricsRegistry.gauge("password_hasher_rejected", "Password checks rejected when saturated",
+				passwordHasher::getRejectedCount);
+
+		metricsRegistry.gauge("request_executor_active", "Async handlers running", requestExecutor::getActiveCount);
+		metricsRegistry.gauge("request_executor_queue_depth", "Async handlers waiting for a thread",
+				() -> requestExecutor.getThreadPoolExecutor()
+						.getQueue()
+						.size());
+
+		metricsRegistry.gauge("registration_filter_false_positive_rate", "Observed Bloom filter false positive rate",
+				registrationFilter::getObservedFalsePositiveRate);
+	}
+
+	// the pool MXBean is only available once the pool has started
+	private int poolValue(ToIntFunction<HikariPoolMXBean> value) {
+		HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+		return pool == null ? 0 : value.applyAsInt(pool);
+	}
+}
@@ -0,0 +1,79 @@
+package com.banking.metrics;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+// Wraps every DAO bean in a proxy that times each public method call,
+// i.e. each JdbcTemplate round trip the DAO makes on behalf of a caller.
+public class DaoTimingPostProcessor implements BeanPostProcessor {
+
+	private static final String DAO_PACKAGE = "com.banking.dao.";
+
+	private MetricsRegistry metricsRegistry;
+
+	public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		Class<?> type = bean.getClass();
+		if (!type.getName()
+				.startsWith(DAO_PACKAGE) || !type.getSimpleName()
+						.endsWith("Dao")) {
+			return bean;
+		}
+
+		// time the data access methods of the base DAO, not helpers added by subclasses
+		Class<?> baseType = type;
+		while (baseType.getSuperclass()
+				.getName()
+				.startsWith(DAO_PACKAGE)) {
+			baseType = baseType.getSuperclass();
+		}
+		Set<String> timedMethods = new HashSet<>();
+		for (Method method : baseType.getDeclaredMethods()) {
+			if (Modifier.isPublic(method.getModifiers()) && !method.getName()
+					.startsWith("set")) {
+				timedMethods.add(signature(method));
+			}
+		}
+
+		String dao = baseType.getSimpleName();
+		Map<Method, Optional<Timer>> timers = new ConcurrentHashMap<>();
+		ProxyFactory proxyFactory = new ProxyFactory(bean);
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+			Optional<Timer> timer = timers.computeIfAbsent(invocation.getMethod(),
+					method -> timedMethods.contains(signature(method))
+							? Optional.of(metricsRegistry.timer("dao_call_duration_seconds",
+									"Time spent in DAO calls", "dao", dao, "method", method.getName()))
+							: Optional.empty());
+			if (timer.isEmpty()) {
+				return invocation.proceed();
+			}
+			long start = System.nanoTime();
+			try {
+				return invocation.proceed();
+			} finally {
+				timer.get()
+						.record(System.nanoTime() - start);
+			}
+		});
+		return proxyFactory.getProxy(type.getClassLoader());
+	}
+
+	private static String signature(Method method) {
+		return method.getName() + Arrays.toString(method.getParameterTypes());
+	}
+}
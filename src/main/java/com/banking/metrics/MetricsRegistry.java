@@ -0,0 +1,107 @@
+package com.banking.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+// Timers and gauges rendered in the Prometheus text exposition format.
+// Timers are exposed as summaries with 0.5, 0.9, 0.99 and 0.999 quantiles
+// over the last minute.
+public class MetricsRegistry {
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private final Map<String, Family<Timer>> timers = new ConcurrentSkipListMap<>();
+	private final Map<String, Family<Supplier<Number>>> gauges = new ConcurrentSkipListMap<>();
+
+	// timer for one label set, e.g. timer("dao_call_duration_seconds", "...", "dao", "AccountDao", "method", "getAccountById")
+	public Timer timer(String name, String help, String... labels) {
+		return timers.computeIfAbsent(name, key -> new Family<>(help))
+				.series
+				.computeIfAbsent(labels(labels), key -> new Timer());
+	}
+
+	public void gauge(String name, String help, Supplier<Number> value, String... labels) {
+		gauges.computeIfAbsent(name, key -> new Family<>(help))
+				.series
+				.put(labels(labels), value);
+	}
+
+	public String scrape() {
+		StringBuilder out = new StringBuilder(8192);
+
+		timers.forEach((name, family) -> {
+			out.append("# HELP ")
+					.append(name)
+					.append(' ')
+					.append(family.help)
+					.append('\n');
+			out.append("# TYPE ")
+					.append(name)
+					.append(" summary\n");
+			family.series.forEach((labels, timer) -> {
+				double[] values = timer.getQuantilesSeconds(QUANTILES);
+				for (int i = 0; i < QUANTILES.length; i++) {
+					String quantileLabel = "quantile=\"" + QUANTILES[i] + "\"";
+					sample(out, name, labels.isEmpty() ? quantileLabel : labels + "," + quantileLabel, values[i]);
+				}
+				sample(out, name + "_sum", labels, timer.getSumSeconds());
+				sample(out, name + "_count", labels, timer.getCount());
+			});
+		});
+
+		gauges.forEach((name, family) -> {
+			out.append("# HELP ")
+					.append(name)
+					.append(' ')
+					.append(family.help)
+					.append('\n');
+			out.append("# TYPE ")
+					.append(name)
+					.append(" gauge\n");
+			family.series.forEach((labels, value) -> sample(out, name, labels, value.get()
+					.doubleValue()));
+		});
+
+		return out.toString();
+	}
+
+	private static void sample(StringBuilder out, String name, String labels, double value) {
+		out.append(name);
+		if (!labels.isEmpty()) {
+			out.append('{')
+					.append(labels)
+					.append('}');
+		}
+		out.append(' ')
+				.append(value)
+				.append('\n');
+	}
+
+	// name1="value1",name2="value2"
+	private static String labels(String... pairs) {
+		StringBuilder labels = new StringBuilder();
+		for (int i = 0; i + 1 < pairs.length; i += 2) {
+			if (labels.length() > 0) {
+				labels.append(',');
+			}
+			labels.append(pairs[i])
+					.append("=\"")
+					.append(pairs[i + 1].replace("\\", "\\\\")
+							.replace("\"", "\\\""))
+					.append('"');
+		}
+		return labels.toString();
+	}
+
+	private static class Family<T> {
+
+		private final String help;
+		private final Map<String, T> series = new ConcurrentHashMap<>();
+
+		private Family(String help) {
+			this.help = help;
+		}
+	}
+}
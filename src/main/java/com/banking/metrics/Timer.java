@@ -0,0 +1,71 @@
+package com.banking.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+// Latency timer in microseconds, up to one minute at 2 significant digits.
+// Quantiles cover a sliding window of the last WINDOW_SLOTS x SLOT_NANOS, so
+// they follow current latency instead of everything since startup; count and
+// sum stay cumulative, as a Prometheus summary expects.
+public class Timer {
+
+	private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+	private static final int DIGITS = 2;
+	private static final int WINDOW_SLOTS = 3;
+	private static final long SLOT_NANOS = TimeUnit.SECONDS.toNanos(20);
+
+	private final Recorder recorder = new Recorder(MAX_MICROS, DIGITS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sumNanos = new LongAdder();
+
+	// interval histograms of the window, by slot number modulo WINDOW_SLOTS; guarded by this
+	private final Histogram[] slots = new Histogram[WINDOW_SLOTS];
+	private final long[] slotNumbers = new long[WINDOW_SLOTS];
+	private Histogram interval;
+	private final Histogram window = new Histogram(MAX_MICROS, DIGITS);
+
+	public void record(long nanos) {
+		long micros = Math.max(0, Math.min(MAX_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+		recorder.recordValue(micros);
+		count.increment();
+		sumNanos.add(nanos);
+	}
+
+	long getCount() {
+		return count.sum();
+	}
+
+	double getSumSeconds() {
+		return sumNanos.sum() / 1e9;
+	}
+
+	// values recorded since the last call land in the current slot
+	synchronized double[] getQuantilesSeconds(double[] quantiles) {
+		long slotNumber = Math.floorDiv(System.nanoTime(), SLOT_NANOS);
+		int slot = (int) Math.floorMod(slotNumber, (long) WINDOW_SLOTS);
+		if (slots[slot] == null) {
+			slots[slot] = new Histogram(MAX_MICROS, DIGITS);
+		} else if (slotNumbers[slot] != slotNumber) {
+			slots[slot].reset();
+		}
+		slotNumbers[slot] = slotNumber;
+		interval = recorder.getIntervalHistogram(interval);
+		slots[slot].add(interval);
+
+		window.reset();
+		for (int i = 0; i < WINDOW_SLOTS; i++) {
+			if (slots[i] != null && slotNumber - slotNumbers[i] < WINDOW_SLOTS) {
+				window.add(slots[i]);
+			}
+		}
+
+		double[] values = new double[quantiles.length];
+		for (int i = 0; i < quantiles.length; i++) {
+			values[i] = window.getValueAtPercentile(quantiles[i] * 100) / 1e6;
+		}
+		return values;
+	}
+}
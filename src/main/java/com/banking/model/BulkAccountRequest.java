@@ -0,0 +1,27 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkAccountRequest {
+
+	private String firstName;
+	private String lastName;
+	private String email;
+	private String phone;
+	private BigDecimal initialDeposit;
+	private String accountType;
+
+}
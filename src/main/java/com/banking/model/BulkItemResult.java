@@ -0,0 +1,35 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+	public static final String OK = "OK";
+	public static final String ERROR = "ERROR";
+
+	// 1-based position of the item in the request
+	private int item;
+	private String status;
+	private Integer accountId;
+	private String accountNumber;
+	private Integer transactionId;
+	private BigDecimal balanceAfter;
+	private String error;
+
+}
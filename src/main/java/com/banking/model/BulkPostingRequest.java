@@ -0,0 +1,24 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkPostingRequest {
+
+	private Integer accountId;
+	private BigDecimal amount;
+	private String description;
+
+}
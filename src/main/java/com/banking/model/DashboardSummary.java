@@ -0,0 +1,27 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class DashboardSummary {
+
+	private List<Account> accounts;
+	private Map<String, BigDecimal> balanceByAccountType;
+	private BigDecimal totalBalance;
+	private List<Transaction> recentTransactions;
+
+}
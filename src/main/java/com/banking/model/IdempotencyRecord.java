@@ -0,0 +1,26 @@
+package com.banking.model;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyRecord {
+
+	private String idempotencyKey;
+	private String fingerprint;
+	// JSON of the stored result; null while the request is still running
+	private String response;
+	private Date expiresAt;
+
+}
@@ -0,0 +1,29 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class InterestAccrualRun {
+
+	private LocalDate accrualDate;
+	private long rangesProcessed;
+	private long rangesSkipped;
+	private long rangesFailed;
+	private long accountsCredited;
+	private BigDecimal totalInterest;
+	private long elapsedMillis;
+
+}
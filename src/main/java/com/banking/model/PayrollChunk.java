@@ -0,0 +1,26 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class PayrollChunk {
+
+	private String batchId;
+	private int firstItem;
+	private int lastItem;
+	private int fromAccountId;
+	private BigDecimal amount;
+
+}
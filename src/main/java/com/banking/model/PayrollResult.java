@@ -0,0 +1,28 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class PayrollResult {
+
+	private String batchId;
+	private int fromAccountId;
+	private int credits;
+	private int chunksProcessed;
+	private int chunksSkipped;
+	private BigDecimal amountPosted;
+	private BigDecimal sourceBalance;
+
+}
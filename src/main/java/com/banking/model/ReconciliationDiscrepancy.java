@@ -0,0 +1,31 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationDiscrepancy {
+
+	public static final String BROKEN_CHAIN = "BROKEN_CHAIN";
+	public static final String MISSING_BALANCE_AFTER = "MISSING_BALANCE_AFTER";
+	public static final String BALANCE_MISMATCH = "BALANCE_MISMATCH";
+
+	private String kind;
+	private Integer accountId;
+	// ledger line where the problem shows; null for BALANCE_MISMATCH on an empty ledger
+	private Integer transactionId;
+	private BigDecimal expected;
+	private BigDecimal actual;
+
+}
@@ -0,0 +1,31 @@
+package com.banking.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationReport {
+
+	private boolean fullVerify;
+	private long rangesProcessed;
+	private long rangesFailed;
+	private long accountsChecked;
+	private long transactionsChecked;
+	private long discrepancyCount;
+	// the first discrepancies found, capped by the engine's reportLimit
+	@ToString.Exclude
+	private List<ReconciliationDiscrepancy> discrepancies;
+	private long elapsedMillis;
+
+}
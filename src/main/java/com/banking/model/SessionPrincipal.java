@@ -0,0 +1,263 @@
+package com.banking.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+// What the HTTP session keeps about the logged-in user: ids, role, username
+// and the accounts the customer owns - no password hash, no profile. It is
+// immutable, so a replicated session only changes when a new principal is
+// stored, and it serialises through SerializedForm as a handful of varints
+// instead of Java serialisation of every field.
+public final class SessionPrincipal implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final String SESSION_ATTRIBUTE = "principal";
+
+	private static final int FORMAT_VERSION = 1;
+	private static final String[] KNOWN_ROLES = { "CUSTOMER", "ADMIN" };
+
+	private final int userId;
+	private final String username;
+	private final String role;
+	private final Integer customerId;
+	// sorted, no duplicates
+	private final int[] accountIds;
+
+	public SessionPrincipal(int userId, String username, String role, Integer customerId,
+			Collection<Integer> accountIds) {
+		this(userId, username, role, customerId, sortedDistinct(accountIds));
+	}
+
+	private SessionPrincipal(int userId, String username, String role, Integer customerId, int[] accountIds) {
+		this.userId = userId;
+		this.username = username;
+		this.role = role;
+		this.customerId = customerId;
+		this.accountIds = accountIds;
+	}
+
+	// the principal of the logged-in user, or null
+	public static SessionPrincipal of(HttpSession session) {
+		return session == null ? null : (SessionPrincipal) session.getAttribute(SESSION_ATTRIBUTE);
+	}
+
+	// the principal of this request: the one AuthenticationInterceptor resolved
+	// from the session or a signed token, else the session's, else null
+	public static SessionPrincipal of(HttpServletRequest request) {
+		Object principal = request.getAttribute(SESSION_ATTRIBUTE);
+		return principal != null ? (SessionPrincipal) principal : of(request.getSession(false));
+	}
+
+	// for log lines; null when nobody is logged in
+	public static Integer userIdOf(HttpServletRequest request) {
+		SessionPrincipal principal = of(request);
+		return principal == null ? null : principal.userId;
+	}
+
+	// replace the principal for the rest of this request, and in the session if
+	// there is one. a token is not reissued for it; see AuthTokenService.
+	public static void store(HttpServletRequest request, SessionPrincipal principal) {
+		request.setAttribute(SESSION_ATTRIBUTE, principal);
+		HttpSession session = request.getSession(false);
+		if (session != null) {
+			session.setAttribute(SESSION_ATTRIBUTE, principal);
+		}
+	}
+
+	public int getUserId() {
+		return userId;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getRole() {
+		return role;
+	}
+
+	public Integer getCustomerId() {
+		return customerId;
+	}
+
+	public boolean isAdmin() {
+		return "ADMIN".equals(role);
+	}
+
+	public boolean ownsAccount(int accountId) {
+		return Arrays.binarySearch(accountIds, accountId) >= 0;
+	}
+
+	public int[] getAccountIds() {
+		return accountIds.clone();
+	}
+
+	// a copy that also owns accountId
+	public SessionPrincipal withAccount(int accountId) {
+		if (ownsAccount(accountId)) {
+			return this;
+		}
+		int[] ids = Arrays.copyOf(accountIds, accountIds.length + 1);
+		ids[ids.length - 1] = accountId;
+		Arrays.sort(ids);
+		return new SessionPrincipal(userId, username, role, customerId, ids);
+	}
+
+	// a copy owning exactly accountIds
+	public SessionPrincipal withAccounts(Collection<Integer> accountIds) {
+		return new SessionPrincipal(userId, username, role, customerId, accountIds);
+	}
+
+	// version, userId, customerId + 1 (0 for none), role code, username,
+	// account count and account ids as ascending deltas, all as varints
+	public byte[] toBytes() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + accountIds.length * 2);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(FORMAT_VERSION);
+			writeVarint(out, userId);
+			writeVarint(out, customerId == null ? 0 : customerId + 1);
+			int roleCode = Arrays.asList(KNOWN_ROLES)
+					.indexOf(role);
+			writeVarint(out, roleCode + 1);
+			if (roleCode < 0) {
+				out.writeUTF(role == null ? "" : role);
+			}
+			out.writeUTF(username == null ? "" : username);
+			writeVarint(out, accountIds.length);
+			int previous = 0;
+			for (int accountId : accountIds) {
+				writeVarint(out, accountId - previous);
+				previous = accountId;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	public static SessionPrincipal fromBytes(byte[] data) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			int version = in.readUnsignedByte();
+			if (version != FORMAT_VERSION) {
+				throw new IllegalArgumentException("unknown session principal format: " + version);
+			}
+			int userId = readVarint(in);
+			int customerId = readVarint(in);
+			int roleCode = readVarint(in) - 1;
+			String role = roleCode < 0 ? emptyToNull(in.readUTF()) : KNOWN_ROLES[roleCode];
+			String username = emptyToNull(in.readUTF());
+			int[] accountIds = new int[readVarint(in)];
+			int previous = 0;
+			for (int i = 0; i < accountIds.length; i++) {
+				previous += readVarint(in);
+				accountIds[i] = previous;
+			}
+			return new SessionPrincipal(userId, username, role, customerId == 0 ? null : customerId - 1, accountIds);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("malformed session principal", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SessionPrincipal(userId=" + userId + ", role=" + role + ", customerId=" + customerId + ", accounts="
+				+ accountIds.length + ")";
+	}
+
+	private static void writeVarint(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarint(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("varint too long");
+	}
+
+	private static int[] sortedDistinct(Collection<Integer> values) {
+		int[] ids = new int[values.size()];
+		int count = 0;
+		for (Integer value : values) {
+			ids[count++] = value;
+		}
+		Arrays.sort(ids);
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+				ids[distinct++] = ids[i];
+			}
+		}
+		return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+	}
+
+	private static String emptyToNull(String value) {
+		return value.isEmpty() ? null : value;
+	}
+
+	// sessions are serialised as the compact form, never field by field
+	private Object writeReplace() {
+		return new SerializedForm(toBytes());
+	}
+
+	private void readObject(ObjectInputStream in) throws InvalidObjectException {
+		throw new InvalidObjectException("session principal is read through its serialized form");
+	}
+
+	private static final class SerializedForm implements Externalizable {
+
+		private static final long serialVersionUID = 1L;
+
+		private byte[] data;
+
+		public SerializedForm() {
+		}
+
+		private SerializedForm(byte[] data) {
+			this.data = data;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			out.writeInt(data.length);
+			out.write(data);
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException {
+			data = new byte[in.readInt()];
+			in.readFully(data);
+		}
+
+		private Object readResolve() {
+			return fromBytes(data);
+		}
+	}
+}
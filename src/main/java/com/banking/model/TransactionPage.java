@@ -0,0 +1,32 @@
+package com.banking.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionPage {
+
+	private List<Transaction> transactions;
+	private String nextCursor;
+	private String previousCursor;
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+
+	public boolean hasPrevious() {
+		return previousCursor != null;
+	}
+
+}
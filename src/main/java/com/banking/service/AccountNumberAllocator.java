@@ -0,0 +1,143 @@
+package com.banking.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.dao.AccountNumberDao;
+
+// Hands out unique account numbers without a database round trip per call.
+// Each node reserves a block of sequence values from account_number_sequence
+// and serves it with an AtomicLong; only the thread that runs a block dry
+// goes back to the database. Numbers are ACC + 11-digit sequence + Luhn check
+// digit, so they never clash with the older ACC + 10 random digits numbers.
+// Call it outside a transaction: a refill takes a connection of its own, and
+// callers holding one while they wait for it can drain the pool.
+public class AccountNumberAllocator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AccountNumberAllocator.class);
+
+	private static final String PREFIX = "ACC";
+	private static final long FIRST_VALUE = 10_000_000_000L;
+	private static final long LAST_VALUE = 99_999_999_999L;
+
+	private AccountNumberDao accountNumberDao;
+	// must start its own transaction so a block is never rolled back with the caller's work
+	private TransactionTemplate transactionTemplate;
+	private int blockSize = 1_000;
+
+	private volatile Block block = new Block(0, 0);
+	private final AtomicLong blocksReserved = new AtomicLong();
+
+	public void setAccountNumberDao(AccountNumberDao accountNumberDao) {
+		this.accountNumberDao = accountNumberDao;
+	}
+
+	public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	public void init() {
+		accountNumberDao.initSequence(FIRST_VALUE);
+	}
+
+	public String allocate() {
+		while (true) {
+			Block current = block;
+			long value = current.next.getAndIncrement();
+			if (value < current.end) {
+				return format(value);
+			}
+			refill(current);
+		}
+	}
+
+	// several numbers at once, e.g. for a chunk of accounts opened in one transaction
+	public List<String> allocate(int count) {
+		List<String> accountNumbers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			accountNumbers.add(allocate());
+		}
+		return accountNumbers;
+	}
+
+	public long getBlocksReserved() {
+		return blocksReserved.get();
+	}
+
+	// a number as typed by a customer, without spaces and in upper case
+	public static String normalize(String accountNumber) {
+		return accountNumber == null ? null : accountNumber.replaceAll("\\s+", "")
+				.toUpperCase(Locale.ROOT);
+	}
+
+	// true if the number has the ACC prefix and a valid Luhn check digit
+	public static boolean isValid(String accountNumber) {
+		if (accountNumber == null || !accountNumber.startsWith(PREFIX) || accountNumber.length() < PREFIX.length() + 2) {
+			return false;
+		}
+		String digits = accountNumber.substring(PREFIX.length());
+		for (int i = 0; i < digits.length(); i++) {
+			if (!Character.isDigit(digits.charAt(i))) {
+				return false;
+			}
+		}
+		return luhnCheckDigit(digits.substring(0, digits.length() - 1)) == digits.charAt(digits.length() - 1) - '0';
+	}
+
+	static int luhnCheckDigit(String payload) {
+		int sum = 0;
+		boolean twice = true;
+		for (int i = payload.length() - 1; i >= 0; i--) {
+			int digit = payload.charAt(i) - '0';
+			if (twice) {
+				digit *= 2;
+				if (digit > 9) {
+					digit -= 9;
+				}
+			}
+			sum += digit;
+			twice = !twice;
+		}
+		return (10 - sum % 10) % 10;
+	}
+
+	private static String format(long value) {
+		String payload = Long.toString(value);
+		return PREFIX + payload + luhnCheckDigit(payload);
+	}
+
+	// one thread fetches the next block; threads that find it already replaced just retry
+	private synchronized void refill(Block exhausted) {
+		if (block != exhausted) {
+			return;
+		}
+		long first = transactionTemplate.execute(status -> accountNumberDao.reserveBlock(blockSize));
+		if (first + blockSize - 1 > LAST_VALUE) {
+			throw new IllegalStateException("account number range exhausted");
+		}
+		block = new Block(first, first + blockSize);
+		blocksReserved.incrementAndGet();
+		LOGGER.debug("account number block reserved: first={}, size={}", first, blockSize);
+	}
+
+	private static final class Block {
+
+		private final AtomicLong next;
+		private final long end;
+
+		private Block(long first, long end) {
+			this.next = new AtomicLong(first);
+			this.end = end;
+		}
+	}
+}
@@ -0,0 +1,358 @@
+package com.banking.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.banking.model.SessionPrincipal;
+
+// Stateless login: a short-lived token carrying the session principal, signed
+// with HMAC-SHA256, so any node can authenticate a request without a session
+// or a database read. Tokens look like keyId.payload.signature (base64url);
+// the key id picks the verification key, so keys rotate by adding the new key
+// on every node, making it the signing key, and retiring the old one once the
+// last token it signed has expired. Revoked tokens are kept in memory on the
+// node that revoked them until they expire.
+// A principal changed during a request (e.g. a new account) is not reissued;
+// BankingController falls back to the database for accounts the token lacks.
+// That fallback also covers customers with more than maxTokenAccounts
+// accounts: only that many ids are embedded, so the cookie stays well under
+// the 4 KB browser limit however many accounts a customer has.
+public class AuthTokenService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AuthTokenService.class);
+
+	public static final String COOKIE_NAME = "AUTH_TOKEN";
+
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final String BEARER = "Bearer ";
+	private static final int FORMAT_VERSION = 1;
+	private static final int MIN_KEY_BYTES = 32;
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder()
+			.withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private boolean enabled;
+	private long ttlSeconds = 900;
+	private int maxTokenAccounts = 100;
+	private Map<String, String> keys = Collections.emptyMap();
+	private String activeKeyId;
+
+	// replaced, never changed in place, so verification reads it without locking
+	private volatile Map<String, SigningKey> signingKeys = Collections.emptyMap();
+	private volatile String signingKeyId;
+
+	// token id -> expiry (epoch seconds)
+	private final ConcurrentHashMap<Long, Long> revokedTokens = new ConcurrentHashMap<>();
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public void setTtlSeconds(long ttlSeconds) {
+		this.ttlSeconds = ttlSeconds;
+	}
+
+	public void setMaxTokenAccounts(int maxTokenAccounts) {
+		this.maxTokenAccounts = maxTokenAccounts;
+	}
+
+	// key id -> base64 secret of at least 32 bytes
+	public void setKeys(Map<String, String> keys) {
+		this.keys = keys;
+	}
+
+	public void setActiveKeyId(String activeKeyId) {
+		this.activeKeyId = activeKeyId;
+	}
+
+	public void init() {
+		for (Map.Entry<String, String> key : keys.entrySet()) {
+			addKey(key.getKey(), Base64.getDecoder()
+					.decode(key.getValue()));
+		}
+		if (activeKeyId != null) {
+			activateKey(activeKeyId);
+		} else if (signingKeys.size() == 1) {
+			activateKey(signingKeys.keySet()
+					.iterator()
+					.next());
+		} else if (signingKeys.isEmpty() && enabled) {
+			byte[] secret = new byte[MIN_KEY_BYTES];
+			new SecureRandom().nextBytes(secret);
+			addKey("local", secret);
+			activateKey("local");
+			LOGGER.warn("token auth has no configured key: using a random one; "
+					+ "tokens will not survive a restart or verify on other nodes");
+		} else if (enabled) {
+			throw new IllegalArgumentException("activeKeyId is required when more than one key is configured");
+		}
+		LOGGER.info("token auth {}: ttlSeconds={}, keys={}, signingKey={}", enabled ? "enabled" : "disabled",
+				ttlSeconds, signingKeys.keySet(), signingKeyId);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public long getTtlSeconds() {
+		return ttlSeconds;
+	}
+
+	// accept tokens signed with keyId from now on
+	public synchronized void addKey(String keyId, byte[] secret) {
+		if (keyId == null || keyId.isEmpty() || keyId.indexOf('.') >= 0) {
+			throw new IllegalArgumentException("key id must be non-empty and without '.'");
+		}
+		if (secret.length < MIN_KEY_BYTES) {
+			throw new IllegalArgumentException("key " + keyId + " is shorter than " + MIN_KEY_BYTES + " bytes");
+		}
+		Map<String, SigningKey> updated = new HashMap<>(signingKeys);
+		updated.put(keyId, new SigningKey(secret));
+		signingKeys = Collections.unmodifiableMap(updated);
+	}
+
+	// sign new tokens with keyId; older keys keep verifying until retired
+	public synchronized void activateKey(String keyId) {
+		if (!signingKeys.containsKey(keyId)) {
+			throw new IllegalArgumentException("unknown key: " + keyId);
+		}
+		signingKeyId = keyId;
+		LOGGER.info("token signing key is now {}", keyId);
+	}
+
+	// stop accepting tokens signed with keyId
+	public synchronized void retireKey(String keyId) {
+		if (keyId.equals(signingKeyId)) {
+			throw new IllegalArgumentException("cannot retire the signing key " + keyId);
+		}
+		Map<String, SigningKey> updated = new HashMap<>(signingKeys);
+		updated.remove(keyId);
+		signingKeys = Collections.unmodifiableMap(updated);
+		LOGGER.info("token key {} retired", keyId);
+	}
+
+	public String issue(SessionPrincipal principal) {
+		int[] accountIds = principal.getAccountIds();
+		if (accountIds.length > maxTokenAccounts) {
+			List<Integer> embedded = new ArrayList<>(maxTokenAccounts);
+			for (int i = 0; i < maxTokenAccounts; i++) {
+				embedded.add(accountIds[i]);
+			}
+			principal = principal.withAccounts(embedded);
+		}
+
+		long issuedAt = System.currentTimeMillis() / 1000;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(FORMAT_VERSION);
+			out.writeLong(ThreadLocalRandom.current()
+					.nextLong());
+			out.writeLong(issuedAt);
+			out.writeLong(issuedAt + ttlSeconds);
+			out.write(principal.toBytes());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		String keyId = signingKeyId;
+		String signed = keyId + "." + ENCODER.encodeToString(bytes.toByteArray());
+		return signed + "." + ENCODER.encodeToString(signingKeys.get(keyId)
+				.sign(signed));
+	}
+
+	// the token's contents, or null when it is malformed, forged, signed with a
+	// retired key, expired or revoked
+	public Token verify(String token) {
+		Token parsed = parse(token);
+		if (parsed == null) {
+			return null;
+		}
+		if (parsed.expiresAt <= System.currentTimeMillis() / 1000) {
+			LOGGER.debug("token rejected: expired");
+			return null;
+		}
+		if (revokedTokens.containsKey(parsed.tokenId)) {
+			LOGGER.debug("token rejected: revoked");
+			return null;
+		}
+		return parsed;
+	}
+
+	// reject token on this node until it expires; unverifiable tokens are ignored
+	public void revoke(String token) {
+		Token parsed = parse(token);
+		if (parsed != null && parsed.expiresAt > System.currentTimeMillis() / 1000) {
+			revokedTokens.put(parsed.tokenId, parsed.expiresAt);
+		}
+	}
+
+	// drop revocations of tokens that have expired anyway
+	public void purgeRevoked() {
+		long now = System.currentTimeMillis() / 1000;
+		int before = revokedTokens.size();
+		revokedTokens.values()
+				.removeIf(expiresAt -> expiresAt <= now);
+		LOGGER.debug("revoked tokens purged: removed={}, remaining={}", before - revokedTokens.size(),
+				revokedTokens.size());
+	}
+
+	public int getRevokedCount() {
+		return revokedTokens.size();
+	}
+
+	// the Authorization: Bearer header first, then the cookie
+	public String tokenFrom(HttpServletRequest request) {
+		String header = request.getHeader("Authorization");
+		if (header != null && header.startsWith(BEARER)) {
+			return header.substring(BEARER.length())
+					.trim();
+		}
+		Cookie[] cookies = request.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if (COOKIE_NAME.equals(cookie.getName())) {
+					return cookie.getValue();
+				}
+			}
+		}
+		return null;
+	}
+
+	public void addTokenCookie(HttpServletRequest request, HttpServletResponse response, String token) {
+		response.addHeader("Set-Cookie", cookie(request, token, ttlSeconds));
+	}
+
+	public void clearTokenCookie(HttpServletRequest request, HttpServletResponse response) {
+		response.addHeader("Set-Cookie", cookie(request, "", 0));
+	}
+
+	// javax.servlet.http.Cookie has no SameSite, so the header is written by hand
+	private String cookie(HttpServletRequest request, String value, long maxAge) {
+		String path = request.getContextPath()
+				.isEmpty() ? "/" : request.getContextPath();
+		return COOKIE_NAME + "=" + value + "; Max-Age=" + maxAge + "; Path=" + path + "; HttpOnly; SameSite=Lax"
+				+ (request.isSecure() ? "; Secure" : "");
+	}
+
+	// checks the signature, not expiry or revocation
+	private Token parse(String token) {
+		if (token == null) {
+			return null;
+		}
+		int keyEnd = token.indexOf('.');
+		int payloadEnd = token.lastIndexOf('.');
+		if (keyEnd <= 0 || payloadEnd <= keyEnd) {
+			LOGGER.debug("token rejected: malformed");
+			return null;
+		}
+		SigningKey key = signingKeys.get(token.substring(0, keyEnd));
+		if (key == null) {
+			LOGGER.debug("token rejected: unknown key");
+			return null;
+		}
+
+		try {
+			byte[] signature = DECODER.decode(token.substring(payloadEnd + 1));
+			if (!MessageDigest.isEqual(signature, key.sign(token.substring(0, payloadEnd)))) {
+				LOGGER.debug("token rejected: bad signature");
+				return null;
+			}
+			byte[] payload = DECODER.decode(token.substring(keyEnd + 1, payloadEnd));
+			try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+				int version = in.readUnsignedByte();
+				if (version != FORMAT_VERSION) {
+					LOGGER.debug("token rejected: unknown format {}", version);
+					return null;
+				}
+				long tokenId = in.readLong();
+				long issuedAt = in.readLong();
+				long expiresAt = in.readLong();
+				byte[] principal = new byte[in.available()];
+				in.readFully(principal);
+				return new Token(tokenId, issuedAt, expiresAt, SessionPrincipal.fromBytes(principal));
+			}
+		} catch (IllegalArgumentException | IOException e) {
+			LOGGER.debug("token rejected: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	// a verified token
+	public static final class Token {
+
+		private final long tokenId;
+		private final long issuedAt;
+		private final long expiresAt;
+		private final SessionPrincipal principal;
+
+		private Token(long tokenId, long issuedAt, long expiresAt, SessionPrincipal principal) {
+			this.tokenId = tokenId;
+			this.issuedAt = issuedAt;
+			this.expiresAt = expiresAt;
+			this.principal = principal;
+		}
+
+		public long getIssuedAt() {
+			return issuedAt;
+		}
+
+		public long getExpiresAt() {
+			return expiresAt;
+		}
+
+		public SessionPrincipal getPrincipal() {
+			return principal;
+		}
+	}
+
+	// Mac is not thread safe and costly to set up, so each thread keeps one initialised per key
+	private static final class SigningKey {
+
+		private final ThreadLocal<Mac> macs;
+
+		private SigningKey(byte[] secret) {
+			SecretKeySpec spec = new SecretKeySpec(secret.clone(), ALGORITHM);
+			macs = ThreadLocal.withInitial(() -> {
+				try {
+					Mac mac = Mac.getInstance(ALGORITHM);
+					mac.init(spec);
+					return mac;
+				} catch (GeneralSecurityException e) {
+					throw new IllegalStateException(ALGORITHM + " is not available", e);
+				}
+			});
+		}
+
+		private byte[] sign(String data) {
+			// doFinal resets the Mac for the next use
+			return macs.get()
+					.doFinal(data.getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+}
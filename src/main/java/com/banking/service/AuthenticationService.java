@@ -1,11 +1,8 @@
 package com.banking.service;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.banking.dao.CustomerDao;
 import com.banking.dao.UserDao;
@@ -14,12 +11,13 @@ import com.banking.model.User;
 
 public class AuthenticationService {
 
-	private static final String ALGORITHAM = "SHA-256";
-
 	private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationService.class);
 
 	private UserDao userDao;
 	private CustomerDao customerDao;
+	private PasswordHasher passwordHasher;
+	private RegistrationFilter registrationFilter;
+	private TransactionTemplate transactionTemplate;
 
 	public void setUserDao(UserDao userDao) {
 		this.userDao = userDao;
@@ -29,18 +27,25 @@ public class AuthenticationService {
 		this.customerDao = customerDao;
 	}
 
-	// Hash password using SHA-256
-	private String hashPassword(String password) {
-		try {
-			MessageDigest digest = MessageDigest.getInstance(ALGORITHAM);
-			byte[] hash = digest.digest(password.getBytes());
-			return Base64.getEncoder()
-					.encodeToString(hash);
-		} catch (NoSuchAlgorithmException e) {
-			LOGGER.error("Error hashing password ", e);
-			throw new RuntimeException("Password hashing failed");
-		}
+	public void setPasswordHasher(PasswordHasher passwordHasher) {
+		this.passwordHasher = passwordHasher;
+	}
 
+	public void setRegistrationFilter(RegistrationFilter registrationFilter) {
+		this.registrationFilter = registrationFilter;
+	}
+
+	public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	// reload the registration filter from the database (admin operation)
+	public void rebuildRegistrationFilter() {
+		registrationFilter.rebuild();
+	}
+
+	public RegistrationFilter getRegistrationFilter() {
+		return registrationFilter;
 	}
 
 	// Register new customer with customer info.
@@ -62,26 +67,25 @@ public class AuthenticationService {
 		}
 
 		// check if username is already exists
-		if (userDao.usernameExists(username)) {
+		if (registrationFilter.usernameExists(username)) {
 			throw new IllegalArgumentException("username is already registered");
 		}
 
 		// check if email is already exists
-		if (userDao.emailExists(email)) {
+		if (registrationFilter.userEmailExists(email)) {
 			throw new IllegalArgumentException("email is already registered");
 		}
 
-		// create customer first
+		// hash first: a busy hasher fails the request before anything is written,
+		// so the client can simply retry
+		String hashedPassword = passwordHasher.hash(password);
+
 		Customer customer = Customer.builder()
 				.firstName(firstName)
 				.lastName(lastName)
 				.email(email)
 				.phone(phone)
 				.build();
-		int customerID = customerDao.createCustomer(customer);
-
-		// create user account
-		String hashedPassword = hashPassword(password);
 		User user = User.builder()
 				.username(username)
 				.password(hashedPassword)
@@ -89,8 +93,15 @@ public class AuthenticationService {
 				.role("CUSTOMER")
 				.build();
 
-		int userId = userDao.createUser(user);
-		user.setUserId(userId);
+		// customer and user commit together or not at all
+		int customerID = transactionTemplate.execute(status -> {
+			int customerId = customerDao.createCustomer(customer);
+			user.setUserId(userDao.createUser(user));
+			return customerId;
+		});
+		int userId = user.getUserId();
+		registrationFilter.addCustomerEmail(email);
+		registrationFilter.addUser(username, email);
 
 		LOGGER.info("user registered: username={}, userId={},customerId={}", username, userId, customerID);
 		return user;
@@ -114,10 +125,14 @@ public class AuthenticationService {
 			throw new IllegalArgumentException("Account is inactive");
 		}
 
-		String hashPassword = hashPassword(password);
-
-		if (user.getPassword()
-				.equals(hashPassword)) {
+		if (passwordHasher.verify(password, user.getPassword())) {
+			// upgrade legacy SHA-256 and low-cost hashes while we have the plain password
+			if (passwordHasher.needsRehash(user.getPassword())) {
+				String rehashed = passwordHasher.hash(password);
+				userDao.updatePassword(user.getUserId(), rehashed);
+				user.setPassword(rehashed);
+				LOGGER.info("password hash upgraded: userId={}", user.getUserId());
+			}
 			LOGGER.info("user authenticated successfully: username={}, userId-{}", username, user.getUserId());
 			return user;
 		} else {
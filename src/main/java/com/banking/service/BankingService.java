@@ -1,26 +1,65 @@
 package com.banking.service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.banking.dao.AccountDao;
 import com.banking.dao.CustomerDao;
+import com.banking.dao.PayrollBatchDao;
 import com.banking.dao.TransactionDao;
 import com.banking.model.Account;
 import com.banking.model.Customer;
+import com.banking.model.DashboardSummary;
+import com.banking.model.PayrollChunk;
+import com.banking.model.PayrollCredit;
+import com.banking.model.PayrollResult;
 import com.banking.model.Transaction;
+import com.banking.model.TransactionPage;
 
 public class BankingService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(BankingService.class);
 
+	public static final int DEFAULT_HISTORY_PAGE_SIZE = 20;
+	public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+	private static final int MAX_LOCK_RETRIES = 3;
+	private static final int STATEMENT_CHUNK_SIZE = 1_000;
+	private static final Timestamp STATEMENT_END_OF_TIME = Timestamp.valueOf("9999-12-31 00:00:00");
+	private static final int MAX_BATCH_ID_LENGTH = 64;
+
+	private static final String CURSOR_NEXT = "n";
+	private static final String CURSOR_PREVIOUS = "p";
+
 	private CustomerDao customerDao;
 	private AccountDao accountDao;
 	private TransactionDao transactionDao;
+	private TransactionTemplate transactionTemplate;
+	private RegistrationFilter registrationFilter;
+	private AccountNumberAllocator accountNumberAllocator;
+	private PayrollBatchDao payrollBatchDao;
+	private int payrollChunkSize = 500;
 
 	public void setCustomerDao(CustomerDao customerDao) {
 		this.customerDao = customerDao;
@@ -34,57 +73,79 @@ public class BankingService {
 		this.transactionDao = transactionDao;
 	}
 
-	// generate unique account number
-	private String generateAccountNumber() {
-		Random random = new Random();
-		long number = 1_000_000_000L + (long) (random.nextDouble() * 9_000_000_000L);
-		return "ACC" + number;
+	public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+		this.transactionTemplate = transactionTemplate;
 	}
 
-	// create account for customer
-	public Account createAccount(String firstName, String lastName, String email, String phone,
-			BigDecimal initialDeposit, String accountType) {
-
-		// check if customer exists
-		Customer customer = customerDao.getCustomerByEmail(email);
+	public void setRegistrationFilter(RegistrationFilter registrationFilter) {
+		this.registrationFilter = registrationFilter;
+	}
 
-		if (customer == null) {
-			// create new customer
-			customer = Customer.builder()
-					.firstName(firstName)
-					.lastName(lastName)
-					.email(email)
-					.phone(phone)
-					.build();
-			int customerId = customerDao.createCustomer(customer);
-			customer.setCustomerId(customerId);
-			LOGGER.info("new customer created: customerId={}", customerId);
-		}
+	public void setAccountNumberAllocator(AccountNumberAllocator accountNumberAllocator) {
+		this.accountNumberAllocator = accountNumberAllocator;
+	}
 
-		// create account
-		String accountNumber = generateAccountNumber();
+	public void setPayrollBatchDao(PayrollBatchDao payrollBatchDao) {
+		this.payrollBatchDao = payrollBatchDao;
+	}
 
-		Account account = Account.builder()
-				.customerId(customer.getCustomerId())
-				.accountNumber(accountNumber)
-				.balance(initialDeposit)
-				.accountType(accountType)
-				.build();
+	public void setPayrollChunkSize(int payrollChunkSize) {
+		this.payrollChunkSize = payrollChunkSize;
+	}
 
-		int accountId = accountDao.createAccount(account);
-		account.setAccountId(accountId);
+	// create account for customer
+	public Account createAccount(String firstName, String lastName, String email, String phone,
+			BigDecimal initialDeposit, String accountType) {
 
-		// record initial deposit transaction if amount > 0
-		if (initialDeposit.compareTo(BigDecimal.ZERO) > 0) {
-			Transaction transaction = Transaction.builder()
-					.accountId(accountId)
-					.transactionType("DEPOSIT")
-					.amount(initialDeposit)
-					.description("initial deposit")
-					.balanceAfter(initialDeposit)
+		// reserved outside the transaction: a block refill takes a connection of its own
+		String accountNumber = accountNumberAllocator.allocate();
+
+		// the customer, the account and its opening ledger line commit together,
+		// so the balance is never ahead of the ledger
+		Account account = inTransaction(() -> {
+			// check if customer exists
+			Customer customer = registrationFilter.getCustomerByEmail(email);
+
+			if (customer == null) {
+				// create new customer
+				customer = Customer.builder()
+						.firstName(firstName)
+						.lastName(lastName)
+						.email(email)
+						.phone(phone)
+						.build();
+				int customerId = customerDao.createCustomer(customer);
+				customer.setCustomerId(customerId);
+				// reaches the filter when the transaction commits
+				registrationFilter.addCustomerEmail(email);
+				LOGGER.info("new customer created: customerId={}", customerId);
+			}
+
+			// create account
+			Account created = Account.builder()
+					.customerId(customer.getCustomerId())
+					.accountNumber(accountNumber)
+					.balance(initialDeposit)
+					.accountType(accountType)
 					.build();
-			transactionDao.createTransaction(transaction);
-		}
+
+			int accountId = accountDao.createAccount(created);
+			created.setAccountId(accountId);
+
+			// record initial deposit transaction if amount > 0
+			if (initialDeposit.compareTo(BigDecimal.ZERO) > 0) {
+				Transaction transaction = Transaction.builder()
+						.accountId(accountId)
+						.transactionType("DEPOSIT")
+						.amount(initialDeposit)
+						.description("initial deposit")
+						.balanceAfter(initialDeposit)
+						.build();
+				transactionDao.createTransaction(transaction);
+			}
+			return created;
+		});
+		int accountId = account.getAccountId();
 
 		LOGGER.info("account created: accountId={},accountNumber={},initialBalance={}",
 				accountId,
@@ -99,70 +160,83 @@ public class BankingService {
 		return accountDao.getAccountById(accountId);
 	}
 
-	// deposit money
-	public Account deposit(int accountId, BigDecimal amount) {
+	// deposit money into an account owned by the customer
+	public Account deposit(int accountId, Integer customerId, BigDecimal amount) {
 		if (amount.compareTo(BigDecimal.ZERO) <= 0) {
 			throw new IllegalArgumentException("deposit amount must be posetive");
 		}
 
-		Account account = accountDao.getAccountById(accountId);
-		BigDecimal newBalance = account.getBalance()
-				.add(amount);
-
-		accountDao.updateBalance(accountId, newBalance);
-
-		Transaction transaction = Transaction.builder()
-				.accountId(accountId)
-				.transactionType("DEPOSIT")
-				.amount(amount)
-				.description("Deposit")
-				.balanceAfter(newBalance)
-				.build();
-
-		transactionDao.createTransaction(transaction);
-
-		LOGGER.info("deposit successful: accountId={}, amount={}, newBalance={}", accountId, amount, newBalance);
+		Account account = post(accountId, customerId, amount, "DEPOSIT", "Deposit");
 
-		account.setBalance(newBalance);
+		LOGGER.info("deposit successful: accountId={}, amount={}, newBalance={}",
+				accountId,
+				amount,
+				account.getBalance());
 		return account;
 	}
 
-	// withdraw money
-	public Account withdraw(int accountId, BigDecimal amount) {
+	// withdraw money from an account owned by the customer
+	public Account withdraw(int accountId, Integer customerId, BigDecimal amount) {
 
 		if (amount.compareTo(BigDecimal.ZERO) <= 0) {
 			throw new IllegalArgumentException("withdraw amount must be posetive.");
 		}
 
-		Account account = accountDao.getAccountById(accountId);
+		Account account = post(accountId, customerId, amount.negate(), "WITHDRAWAL", "withdrawal");
 
-		if (account.getBalance()
-				.compareTo(amount) < 0) {
-			throw new IllegalArgumentException("insufficient balance");
-		}
+		LOGGER.info("withdrawal successful accountId={},amount={},newBalance={}",
+				accountId,
+				amount,
+				account.getBalance());
+		return account;
+	}
 
-		BigDecimal newBalance = account.getBalance()
-				.subtract(amount);
-		accountDao.updateBalance(accountId, newBalance);
+	// apply a signed amount to one account and record the ledger line.
+	// the conditional update checks ownership and overdraft in the database,
+	// and the row lock it takes keeps the balance read back exact. the
+	// transaction is the update, a balance read by primary key and the insert;
+	// the holder details come from the account cache after the commit.
+	private Account post(int accountId, Integer customerId, BigDecimal delta, String transactionType,
+			String description) {
+		if (customerId == null) {
+			throw new IllegalArgumentException("unauthorized access to account.");
+		}
 
-		Transaction transaction = Transaction.builder()
-				.accountId(accountId)
-				.transactionType("WITHDRAWAL")
-				.amount(amount)
-				.description("withdrawal")
-				.balanceAfter(newBalance)
-				.build();
+		BigDecimal balance = inTransaction(() -> {
+			if (accountDao.applyBalanceDelta(accountId, customerId, delta) == 0) {
+				// nothing changed - find out why, only on this failure path
+				Integer ownerId = accountDao.getCustomerIdByAccountId(accountId);
+				if (ownerId == null) {
+					throw new IllegalArgumentException("account not found.");
+				}
+				if (!ownerId.equals(customerId)) {
+					throw new IllegalArgumentException("unauthorized access to account.");
+				}
+				throw new IllegalArgumentException("insufficient balance");
+			}
+
+			BigDecimal newBalance = accountDao.getBalance(accountId);
 
-		transactionDao.createTransaction(transaction);
+			Transaction transaction = Transaction.builder()
+					.accountId(accountId)
+					.transactionType(transactionType)
+					.amount(delta.abs())
+					.description(description)
+					.balanceAfter(newBalance)
+					.build();
+			transactionDao.createTransaction(transaction);
 
-		LOGGER.info("withdrawal successful accountId={},amount={},newBalance={}", accountId, amount, newBalance);
+			return newBalance;
+		});
 
-		account.setBalance(newBalance);
-		return account;
+		return accountDao.getAccountWithBalance(accountId, balance);
 	}
 
-	// transfer money between accounts
-	public void transfer(int fromAccountId, int toAccountId, BigDecimal amount) {
+	// transfer money between accounts.
+	// both rows are locked in account id order inside one transaction so
+	// concurrent transfers cannot lose updates or deadlock on each other.
+	// returns the source account as of the commit, so callers need no read afterwards.
+	public Account transfer(int fromAccountId, int toAccountId, BigDecimal amount) {
 
 		if (amount.compareTo(BigDecimal.ZERO) <= 0) {
 			throw new IllegalArgumentException("transfer amount must be posetive.");
@@ -172,58 +246,407 @@ public class BankingService {
 			throw new IllegalArgumentException("cannot transfer to the same account.");
 		}
 
-		Account fromAccount = accountDao.getAccountById(fromAccountId);
-		Account toAccount = accountDao.getAccountById(toAccountId);
+		Account source = inTransaction(() -> {
+			Account first = accountDao.lockAccountById(Math.min(fromAccountId, toAccountId));
+			Account second = accountDao.lockAccountById(Math.max(fromAccountId, toAccountId));
+			Account fromAccount = first.getAccountId() == fromAccountId ? first : second;
+			Account toAccount = first.getAccountId() == fromAccountId ? second : first;
+
+			if (fromAccount.getBalance()
+					.compareTo(amount) < 0) {
+				throw new IllegalArgumentException("insufficient balance to transfer.");
+			}
+
+			// debit from source account
+			BigDecimal fromNewBalance = fromAccount.getBalance()
+					.subtract(amount);
+			accountDao.updateBalance(fromAccountId, fromNewBalance);
+
+			// credit to destination account
+			BigDecimal toNewBalance = toAccount.getBalance()
+					.add(amount);
+			accountDao.updateBalance(toAccountId, toNewBalance);
+
+			Transaction debitTransaction = Transaction.builder()
+					.accountId(fromAccountId)
+					.transactionType("TRANSFER_OUT")
+					.amount(amount)
+					.description("Transfer to " + toAccount.getAccountNumber())
+					.balanceAfter(fromNewBalance)
+					.build();
 
-		if (fromAccount.getBalance()
-				.compareTo(amount) < 0) {
-			throw new IllegalArgumentException("insufficient balance to transfer.");
-		}
+			Transaction creditTransaction = Transaction.builder()
+					.accountId(toAccountId)
+					.transactionType("TRANSFER_IN")
+					.amount(amount)
+					.description("Transfer from " + fromAccount.getAccountNumber())
+					.balanceAfter(toNewBalance)
+					.build();
 
-		// debit from source account
-		BigDecimal fromNewBalance = fromAccount.getBalance()
-				.subtract(amount);
-		accountDao.updateBalance(fromAccountId, fromNewBalance);
+			transactionDao.createTransactions(Arrays.asList(debitTransaction, creditTransaction));
 
-		Transaction debitTransaction = Transaction.builder()
-				.accountId(fromAccountId)
-				.transactionType("TRANSFER_OUT")
-				.amount(amount)
-				.description("Transfer to " + toAccount.getAccountNumber())
-				.balanceAfter(fromNewBalance)
-				.build();
-		transactionDao.createTransaction(debitTransaction);
-
-		// credit to destination account
-		BigDecimal toNewBalance = toAccount.getBalance()
-				.add(amount);
-		accountDao.updateBalance(toAccountId, toNewBalance);
-
-		Transaction creditTransaction = Transaction.builder()
-				.accountId(toAccountId)
-				.transactionType("TRANSFER_IN")
-				.amount(amount)
-				.description("Transfer from " + fromAccount.getAccountNumber())
-				.balanceAfter(toNewBalance)
-				.build();
-		transactionDao.createTransaction(creditTransaction);
+			return accountDao.getAccountById(fromAccountId);
+		});
 
-		LOGGER.info("transfer successful: fromAccountId={}, toAccountId={},amount={},fromBalance={},toBalance={}",
+		LOGGER.info("transfer successful: fromAccountId={}, toAccountId={},amount={},fromBalance={}",
 				fromAccountId,
 				toAccountId,
 				amount,
-				fromNewBalance,
-				toNewBalance);
+				source.getBalance());
+		return source;
+	}
+
+	// pay many accounts from one source account owned by the customer.
+	// credits are posted in chunks; each chunk is one transaction that locks
+	// the source once together with its recipients (in id order), writes one
+	// debit line and one credit line per recipient as batches, and records a
+	// checkpoint under batchId. resubmitting the same batch after a failure
+	// posts only the chunks that did not commit.
+	public PayrollResult payroll(String batchId, int fromAccountId, Integer customerId, List<PayrollCredit> credits) {
+		if (customerId == null) {
+			throw new IllegalArgumentException("unauthorized access to account.");
+		}
+		if (batchId == null || batchId.trim()
+				.isEmpty() || batchId.length() > MAX_BATCH_ID_LENGTH) {
+			throw new IllegalArgumentException("batch id is required, at most " + MAX_BATCH_ID_LENGTH + " characters");
+		}
+		if (credits.isEmpty()) {
+			throw new IllegalArgumentException("payroll has no credits");
+		}
+		for (int i = 0; i < credits.size(); i++) {
+			PayrollCredit credit = credits.get(i);
+			if (credit.getAccountId() == null || credit.getAccountId() == fromAccountId) {
+				throw new IllegalArgumentException("payroll item " + (i + 1) + ": invalid destination account");
+			}
+			if (credit.getAmount() == null || credit.getAmount()
+					.signum() <= 0 || credit.getAmount()
+							.scale() > 2) {
+				throw new IllegalArgumentException("payroll item " + (i + 1) + ": invalid amount");
+			}
+		}
+
+		// items posted by an earlier run of this batch; items are numbered from 1
+		boolean[] posted = new boolean[credits.size() + 1];
+		int chunksSkipped = 0;
+		for (PayrollChunk chunk : payrollBatchDao.getCompletedChunks(batchId)) {
+			if (chunk.getFromAccountId() != fromAccountId || chunk.getLastItem() > credits.size()
+					|| payrollTotal(credits, chunk.getFirstItem(), chunk.getLastItem()).compareTo(chunk.getAmount()) != 0) {
+				throw new IllegalArgumentException("batch id was already used for a different payroll");
+			}
+			Arrays.fill(posted, chunk.getFirstItem(), chunk.getLastItem() + 1, true);
+			chunksSkipped++;
+		}
+
+		int chunksProcessed = 0;
+		BigDecimal amountPosted = BigDecimal.ZERO;
+		BigDecimal sourceBalance = null;
+		int item = 1;
+		while (item <= credits.size()) {
+			if (posted[item]) {
+				item++;
+				continue;
+			}
+			int firstItem = item;
+			while (item <= credits.size() && !posted[item] && item - firstItem < payrollChunkSize) {
+				item++;
+			}
+			int lastItem = item - 1;
+
+			BigDecimal balance = postPayrollChunk(batchId, fromAccountId, customerId, credits, firstItem, lastItem);
+			if (balance == null) {
+				chunksSkipped++;
+			} else {
+				chunksProcessed++;
+				amountPosted = amountPosted.add(payrollTotal(credits, firstItem, lastItem));
+				sourceBalance = balance;
+			}
+		}
+
+		LOGGER.info("payroll posted: batchId={}, fromAccountId={}, credits={}, chunksProcessed={}, chunksSkipped={}, amount={}",
+				batchId,
+				fromAccountId,
+				credits.size(),
+				chunksProcessed,
+				chunksSkipped,
+				amountPosted);
+
+		return PayrollResult.builder()
+				.batchId(batchId)
+				.fromAccountId(fromAccountId)
+				.credits(credits.size())
+				.chunksProcessed(chunksProcessed)
+				.chunksSkipped(chunksSkipped)
+				.amountPosted(amountPosted)
+				.sourceBalance(sourceBalance != null ? sourceBalance : accountDao.getBalance(fromAccountId))
+				.build();
+	}
+
+	// post items firstItem..lastItem; returns the source balance after the chunk,
+	// or null if a concurrent run of the same batch posted it first
+	private BigDecimal postPayrollChunk(String batchId, int fromAccountId, Integer customerId,
+			List<PayrollCredit> credits, int firstItem, int lastItem) {
+		List<PayrollCredit> chunk = credits.subList(firstItem - 1, lastItem);
+		BigDecimal total = payrollTotal(credits, firstItem, lastItem);
+		try {
+			return inTransaction(() -> {
+				// claim the chunk first: a concurrent run of the same batch waits here, then fails
+				payrollBatchDao.markChunkCompleted(batchId, firstItem, lastItem, fromAccountId, total);
+
+				Set<Integer> accountIds = new TreeSet<>();
+				accountIds.add(fromAccountId);
+				for (PayrollCredit credit : chunk) {
+					accountIds.add(credit.getAccountId());
+				}
+				Map<Integer, Account> accounts = new HashMap<>();
+				for (Account account : accountDao.lockAccountsByIds(accountIds)) {
+					accounts.put(account.getAccountId(), account);
+				}
+
+				Account source = accounts.get(fromAccountId);
+				if (source == null || !source.getCustomerId()
+						.equals(customerId)) {
+					throw new IllegalArgumentException("unauthorized access to account.");
+				}
+				if (source.getBalance()
+						.compareTo(total) < 0) {
+					throw new IllegalArgumentException(
+							"insufficient balance for payroll items " + firstItem + "-" + lastItem);
+				}
+				BigDecimal sourceBalance = source.getBalance()
+						.subtract(total);
+
+				Map<Integer, BigDecimal> deltas = new LinkedHashMap<>();
+				deltas.put(fromAccountId, total.negate());
+				Map<Integer, BigDecimal> balances = new HashMap<>();
+				List<Transaction> lines = new ArrayList<>(chunk.size() + 1);
+				lines.add(Transaction.builder()
+						.accountId(fromAccountId)
+						.transactionType("TRANSFER_OUT")
+						.amount(total)
+						.description("Payroll " + batchId)
+						.balanceAfter(sourceBalance)
+						.build());
+				for (int i = 0; i < chunk.size(); i++) {
+					PayrollCredit credit = chunk.get(i);
+					Account account = accounts.get(credit.getAccountId());
+					if (account == null) {
+						throw new IllegalArgumentException("payroll item " + (firstItem + i) + ": account not found");
+					}
+					BigDecimal balanceAfter = balances.getOrDefault(account.getAccountId(), account.getBalance())
+							.add(credit.getAmount());
+					balances.put(account.getAccountId(), balanceAfter);
+					deltas.merge(account.getAccountId(), credit.getAmount(), BigDecimal::add);
+					lines.add(Transaction.builder()
+							.accountId(account.getAccountId())
+							.transactionType("TRANSFER_IN")
+							.amount(credit.getAmount())
+							.description("Payroll from " + source.getAccountNumber())
+							.balanceAfter(balanceAfter)
+							.build());
+				}
+
+				accountDao.applyBalanceDeltas(deltas);
+				transactionDao.createTransactions(lines);
+				return sourceBalance;
+			});
+		} catch (DuplicateKeyException e) {
+			LOGGER.info("payroll chunk already posted: batchId={}, items={}-{}", batchId, firstItem, lastItem);
+			return null;
+		}
+	}
+
+	private static BigDecimal payrollTotal(List<PayrollCredit> credits, int firstItem, int lastItem) {
+		BigDecimal total = BigDecimal.ZERO;
+		for (int item = firstItem; item <= lastItem; item++) {
+			total = total.add(credits.get(item - 1)
+					.getAmount());
+		}
+		return total;
+	}
+
+	// run work in one database transaction, retrying when the database
+	// picks it as a deadlock victim or times out waiting for a row lock
+	private <T> T inTransaction(Supplier<T> work) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return transactionTemplate.execute(status -> work.get());
+			} catch (PessimisticLockingFailureException e) {
+				if (attempt >= MAX_LOCK_RETRIES) {
+					throw e;
+				}
+				LOGGER.warn("lock conflict, retrying transaction: attempt={}, error={}", attempt, e.getMessage());
+				try {
+					Thread.sleep(ThreadLocalRandom.current()
+							.nextLong(5, 20L * attempt));
+				} catch (InterruptedException ie) {
+					Thread.currentThread()
+							.interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	// get one page of transaction history, newest first.
+	// cursor is null for the first page, otherwise a value from a previous page.
+	public TransactionPage getTransactionHistory(int accountId, String cursor, int pageSize) {
+		int limit = Math.max(1, Math.min(pageSize, MAX_HISTORY_PAGE_SIZE));
+
+		List<Transaction> rows;
+		boolean backward = false;
+		if (cursor == null || cursor.isEmpty()) {
+			rows = transactionDao.getLatestTransactions(accountId, limit + 1);
+		} else {
+			String[] key = decodeCursor(cursor);
+			backward = CURSOR_PREVIOUS.equals(key[0]);
+			Timestamp date = Timestamp.from(Instant.ofEpochSecond(Long.parseLong(key[1]), Long.parseLong(key[2])));
+			int transactionId = Integer.parseInt(key[3]);
+			rows = backward ? transactionDao.getTransactionsAfter(accountId, date, transactionId, limit + 1)
+					: transactionDao.getTransactionsBefore(accountId, date, transactionId, limit + 1);
+		}
+
+		// one extra row tells whether there is more in the direction we walked
+		boolean more = rows.size() > limit;
+		List<Transaction> transactions;
+		if (!more) {
+			transactions = rows;
+		} else if (backward) {
+			transactions = rows.subList(1, rows.size());
+		} else {
+			transactions = rows.subList(0, limit);
+		}
+
+		boolean hasNext = backward || more;
+		boolean hasPrevious = backward ? more : cursor != null && !cursor.isEmpty();
+
+		TransactionPage page = TransactionPage.builder()
+				.transactions(transactions)
+				.build();
+		if (!transactions.isEmpty()) {
+			if (hasNext) {
+				page.setNextCursor(encodeCursor(CURSOR_NEXT, transactions.get(transactions.size() - 1)));
+			}
+			if (hasPrevious) {
+				page.setPreviousCursor(encodeCursor(CURSOR_PREVIOUS, transactions.get(0)));
+			}
+		}
+		return page;
 	}
 
-	// get transaction history
-	public List<Transaction> getTransactionHistory(int accountId) {
-		return transactionDao.getTransactionsByAccountId(accountId);
+	// cursor is "direction:epochSecond:nanos:transactionId", base64 encoded so clients treat it as opaque
+	private String encodeCursor(String direction, Transaction transaction) {
+		Instant date = transaction.getTransactionDate()
+				.toInstant();
+		String key = direction + ":" + date.getEpochSecond() + ":" + date.getNano() + ":"
+				+ transaction.getTransactionId();
+		return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString(key.getBytes(StandardCharsets.UTF_8));
 	}
 
-	// get all accounts
-	public List<Account> getAllAccounts() {
-		return accountDao.getAllAccounts();
+	private String[] decodeCursor(String cursor) {
+		try {
+			String key = new String(Base64.getUrlDecoder()
+					.decode(cursor), StandardCharsets.UTF_8);
+			String[] parts = key.split(":");
+			if (parts.length != 4 || !(CURSOR_NEXT.equals(parts[0]) || CURSOR_PREVIOUS.equals(parts[0]))) {
+				throw new IllegalArgumentException("invalid page cursor");
+			}
+			Long.parseLong(parts[1]);
+			Long.parseLong(parts[2]);
+			Integer.parseInt(parts[3]);
+			return parts;
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("invalid page cursor");
+		}
+	}
+
+	// account id for an account number typed in by the customer
+	public int getAccountIdByNumber(String accountNumber) {
+		String normalized = AccountNumberAllocator.normalize(accountNumber);
+		Integer accountId = normalized == null ? null : accountDao.getAccountIdByNumber(normalized);
+		if (accountId == null) {
+			throw new IllegalArgumentException("destination account not found.");
+		}
+		return accountId;
+	}
+
+	// get accounts of one customer
+	public List<Account> getCustomerAccounts(int customerId) {
+		return accountDao.getAccountsWithCustomerByCustomerId(customerId);
+	}
+
+	// ids of the accounts of one customer, for the session principal
+	public List<Integer> getCustomerAccountIds(int customerId) {
+		return accountDao.getAccountIdsByCustomerId(customerId);
+	}
+
+	// forget cached holder details after a customer row was edited in the
+	// database; null forgets every customer (admin operation)
+	public void evictCachedCustomer(Integer customerId) {
+		if (customerId == null) {
+			accountDao.evictAll();
+		} else {
+			accountDao.evictCustomer(customerId);
+		}
+	}
+
+	// walk an account's ledger oldest first, one bounded chunk at a time.
+	// from is inclusive and to exclusive; either may be null for an open range.
+	public long exportStatement(int accountId, Integer customerId, Timestamp from, Timestamp to,
+			Consumer<Transaction> consumer) {
+		// by primary key, so an unknown account id is refused like someone else's
+		Integer ownerId = accountDao.getCustomerIdByAccountId(accountId);
+		if (customerId == null || !customerId.equals(ownerId)) {
+			throw new IllegalArgumentException("unauthorized access to account.");
+		}
+
+		Timestamp fromDate = from != null ? from : new Timestamp(0);
+		Timestamp toDate = to != null ? to : STATEMENT_END_OF_TIME;
+
+		long count = 0;
+		Timestamp afterDate = fromDate;
+		int afterId = 0;
+		while (true) {
+			List<Transaction> chunk = transactionDao.getStatementChunk(accountId, fromDate, toDate, afterDate, afterId,
+					STATEMENT_CHUNK_SIZE);
+			for (Transaction transaction : chunk) {
+				consumer.accept(transaction);
+			}
+			count += chunk.size();
+			if (chunk.size() < STATEMENT_CHUNK_SIZE) {
+				return count;
+			}
+			Transaction last = chunk.get(chunk.size() - 1);
+			afterDate = (Timestamp) last.getTransactionDate();
+			afterId = last.getTransactionId();
+		}
+	}
+
+	// dashboard summary: accounts, balance per account type and latest transactions
+	public DashboardSummary getDashboardSummary(int customerId, int recentCount) {
+		List<Account> accounts = accountDao.getAccountsWithCustomerByCustomerId(customerId);
+
+		Map<String, BigDecimal> balanceByAccountType = new TreeMap<>();
+		BigDecimal totalBalance = BigDecimal.ZERO;
+		for (Account account : accounts) {
+			balanceByAccountType.merge(account.getAccountType(), account.getBalance(), BigDecimal::add);
+			totalBalance = totalBalance.add(account.getBalance());
+		}
+
+		List<Integer> accountIds = new ArrayList<>(accounts.size());
+		for (Account account : accounts) {
+			accountIds.add(account.getAccountId());
+		}
+		List<Transaction> recentTransactions = transactionDao.getRecentTransactionsByAccountIds(accountIds,
+				recentCount);
+
+		return DashboardSummary.builder()
+				.accounts(accounts)
+				.balanceByAccountType(balanceByAccountType)
+				.totalBalance(totalBalance)
+				.recentTransactions(recentTransactions)
+				.build();
 	}
 
 	// get customer by Id
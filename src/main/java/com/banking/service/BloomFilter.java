@@ -0,0 +1,77 @@
+package com.banking.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Thread-safe Bloom filter over strings. Lock-free: bits are set with CAS.
+class BloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bitCount;
+	private final int hashCount;
+
+	BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int wordCount = (int) Math.max(1, (bits + 63) / 64);
+		this.words = new AtomicLongArray(wordCount);
+		this.bitCount = (long) wordCount * 64;
+		this.hashCount = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+	}
+
+	void put(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1);
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+			int index = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long word;
+			do {
+				word = words.get(index);
+				if ((word & mask) != 0) {
+					break;
+				}
+			} while (!words.compareAndSet(index, word, word | mask));
+		}
+	}
+
+	boolean mightContain(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1);
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// false positive rate implied by the current fill ratio
+	double expectedFalsePositiveRate() {
+		long set = 0;
+		for (int i = 0; i < words.length(); i++) {
+			set += Long.bitCount(words.get(i));
+		}
+		return Math.pow((double) set / bitCount, hashCount);
+	}
+
+	// 64-bit FNV-1a over the UTF-16 code units
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	// murmur3 finaliser
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
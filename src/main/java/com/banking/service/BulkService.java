@@ -0,0 +1,393 @@
+package com.banking.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.banking.dao.AccountDao;
+import com.banking.dao.CustomerDao;
+import com.banking.dao.TransactionDao;
+import com.banking.model.Account;
+import com.banking.model.BulkAccountRequest;
+import com.banking.model.BulkItemResult;
+import com.banking.model.BulkPostingRequest;
+import com.banking.model.Customer;
+import com.banking.model.Transaction;
+
+// Account openings and credit postings in chunks. A chunk is one database
+// transaction made of a handful of JDBC batches, whatever its size: one
+// customer lookup, one customer insert, one account insert and one ledger
+// insert. If a chunk fails as a whole, its items are retried one at a time
+// so a single bad item only fails itself.
+public class BulkService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BulkService.class);
+
+	private static final int MAX_LOCK_RETRIES = 3;
+	private static final Set<String> ACCOUNT_TYPES = new LinkedHashSet<>(Arrays.asList("SAVINGS", "CURRENT"));
+
+	private CustomerDao customerDao;
+	private AccountDao accountDao;
+	private TransactionDao transactionDao;
+	private TransactionTemplate transactionTemplate;
+	private RegistrationFilter registrationFilter;
+	private AccountNumberAllocator accountNumberAllocator;
+
+	private int chunkSize = 500;
+
+	public void setCustomerDao(CustomerDao customerDao) {
+		this.customerDao = customerDao;
+	}
+
+	public void setAccountDao(AccountDao accountDao) {
+		this.accountDao = accountDao;
+	}
+
+	public void setTransactionDao(TransactionDao transactionDao) {
+		this.transactionDao = transactionDao;
+	}
+
+	public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	public void setRegistrationFilter(RegistrationFilter registrationFilter) {
+		this.registrationFilter = registrationFilter;
+	}
+
+	public void setAccountNumberAllocator(AccountNumberAllocator accountNumberAllocator) {
+		this.accountNumberAllocator = accountNumberAllocator;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	// open one chunk of accounts; firstItem is the 1-based request position of requests.get(0)
+	public List<BulkItemResult> openAccounts(int firstItem, List<BulkAccountRequest> requests) {
+		BulkItemResult[] results = new BulkItemResult[requests.size()];
+		List<Integer> valid = new ArrayList<>();
+		for (int i = 0; i < requests.size(); i++) {
+			String error = validate(requests.get(i));
+			if (error != null) {
+				results[i] = error(firstItem + i, error);
+			} else {
+				valid.add(i);
+			}
+		}
+
+		// reserved before the chunk transaction, which holds a connection while a
+		// block refill would need another; the per-item fallback reuses them
+		String[] accountNumbers = new String[requests.size()];
+		List<String> reserved = accountNumberAllocator.allocate(valid.size());
+		for (int i = 0; i < valid.size(); i++) {
+			accountNumbers[valid.get(i)] = reserved.get(i);
+		}
+
+		runChunk(valid, indexes -> openAccountsChunk(firstItem, requests, accountNumbers, indexes, results), results,
+				firstItem);
+
+		LOGGER.info("bulk accounts: firstItem={}, items={}, valid={}", firstItem, requests.size(), valid.size());
+		return Arrays.asList(results);
+	}
+
+	// post one chunk of credits; firstItem is the 1-based request position of requests.get(0)
+	public List<BulkItemResult> postCredits(int firstItem, List<BulkPostingRequest> requests) {
+		BulkItemResult[] results = new BulkItemResult[requests.size()];
+		List<Integer> valid = new ArrayList<>();
+		for (int i = 0; i < requests.size(); i++) {
+			String error = validate(requests.get(i));
+			if (error != null) {
+				results[i] = error(firstItem + i, error);
+			} else {
+				valid.add(i);
+			}
+		}
+
+		runChunk(valid, indexes -> postCreditsChunk(firstItem, requests, indexes, results), results, firstItem);
+
+		LOGGER.info("bulk credits: firstItem={}, items={}, valid={}", firstItem, requests.size(), valid.size());
+		return Arrays.asList(results);
+	}
+
+	// run the whole chunk in one transaction; if it fails, fall back to one transaction per item
+	private void runChunk(List<Integer> indexes, ChunkWork work, BulkItemResult[] results, int firstItem) {
+		if (indexes.isEmpty()) {
+			return;
+		}
+		try {
+			inTransaction(() -> {
+				work.run(indexes);
+				return null;
+			});
+			return;
+		} catch (RuntimeException e) {
+			if (indexes.size() == 1) {
+				results[indexes.get(0)] = failed(firstItem + indexes.get(0), e);
+				return;
+			}
+			LOGGER.warn("bulk chunk failed, retrying items one by one: firstItem={}, error={}", firstItem,
+					e.getMessage());
+		}
+
+		for (Integer index : indexes) {
+			try {
+				inTransaction(() -> {
+					work.run(Arrays.asList(index));
+					return null;
+				});
+			} catch (RuntimeException e) {
+				results[index] = failed(firstItem + index, e);
+			}
+		}
+	}
+
+	private void openAccountsChunk(int firstItem, List<BulkAccountRequest> requests, String[] accountNumbers,
+			List<Integer> indexes, BulkItemResult[] results) {
+		// customers by email, matched case-insensitively like the email column
+		Set<String> emails = new LinkedHashSet<>();
+		for (Integer index : indexes) {
+			emails.add(requests.get(index)
+					.getEmail());
+		}
+		Map<String, Customer> customers = new HashMap<>();
+		for (Customer customer : customerDao.getCustomersByEmails(emails)) {
+			customers.putIfAbsent(emailKey(customer.getEmail()), customer);
+		}
+
+		List<Customer> newCustomers = new ArrayList<>();
+		for (Integer index : indexes) {
+			BulkAccountRequest request = requests.get(index);
+			String key = emailKey(request.getEmail());
+			if (!customers.containsKey(key)) {
+				Customer customer = Customer.builder()
+						.firstName(request.getFirstName())
+						.lastName(request.getLastName())
+						.email(request.getEmail())
+						.phone(request.getPhone())
+						.build();
+				customers.put(key, customer);
+				newCustomers.add(customer);
+			}
+		}
+		if (!newCustomers.isEmpty()) {
+			int[] customerIds = customerDao.createCustomers(newCustomers);
+			for (int i = 0; i < customerIds.length; i++) {
+				newCustomers.get(i)
+						.setCustomerId(customerIds[i]);
+			}
+		}
+
+		List<Account> accounts = new ArrayList<>(indexes.size());
+		for (Integer index : indexes) {
+			BulkAccountRequest request = requests.get(index);
+			accounts.add(Account.builder()
+					.customerId(customers.get(emailKey(request.getEmail()))
+							.getCustomerId())
+					.accountNumber(accountNumbers[index])
+					.balance(request.getInitialDeposit())
+					.accountType(request.getAccountType()
+							.toUpperCase(Locale.ROOT))
+					.build());
+		}
+		int[] accountIds = accountDao.createAccounts(accounts);
+
+		List<Transaction> deposits = new ArrayList<>();
+		for (int i = 0; i < accounts.size(); i++) {
+			Account account = accounts.get(i);
+			account.setAccountId(accountIds[i]);
+			if (account.getBalance()
+					.signum() > 0) {
+				deposits.add(Transaction.builder()
+						.accountId(account.getAccountId())
+						.transactionType("DEPOSIT")
+						.amount(account.getBalance())
+						.description("initial deposit")
+						.balanceAfter(account.getBalance())
+						.build());
+			}
+		}
+		if (!deposits.isEmpty()) {
+			transactionDao.createTransactions(deposits);
+		}
+
+		for (int i = 0; i < indexes.size(); i++) {
+			Account account = accounts.get(i);
+			results[indexes.get(i)] = BulkItemResult.builder()
+					.item(firstItem + indexes.get(i))
+					.status(BulkItemResult.OK)
+					.accountId(account.getAccountId())
+					.accountNumber(account.getAccountNumber())
+					.balanceAfter(account.getBalance())
+					.build();
+		}
+
+		// reach the filter when the chunk's transaction commits
+		for (Customer customer : newCustomers) {
+			registrationFilter.addCustomerEmail(customer.getEmail());
+		}
+	}
+
+	private void postCreditsChunk(int firstItem, List<BulkPostingRequest> requests, List<Integer> indexes,
+			BulkItemResult[] results) {
+		Set<Integer> accountIds = new LinkedHashSet<>();
+		for (Integer index : indexes) {
+			accountIds.add(requests.get(index)
+					.getAccountId());
+		}
+
+		// running balance per account, starting from the locked rows
+		Map<Integer, BigDecimal> balances = new HashMap<>();
+		for (Account account : accountDao.lockAccountsByIds(accountIds)) {
+			balances.put(account.getAccountId(), account.getBalance());
+		}
+
+		Map<Integer, BigDecimal> deltas = new LinkedHashMap<>();
+		List<Transaction> lines = new ArrayList<>();
+		List<Integer> lineIndexes = new ArrayList<>();
+		for (Integer index : indexes) {
+			BulkPostingRequest request = requests.get(index);
+			BigDecimal balance = balances.get(request.getAccountId());
+			if (balance == null) {
+				results[index] = error(firstItem + index, "account not found");
+				continue;
+			}
+			BigDecimal balanceAfter = balance.add(request.getAmount());
+			balances.put(request.getAccountId(), balanceAfter);
+			deltas.merge(request.getAccountId(), request.getAmount(), BigDecimal::add);
+			lines.add(Transaction.builder()
+					.accountId(request.getAccountId())
+					.transactionType("DEPOSIT")
+					.amount(request.getAmount())
+					.description(request.getDescription() != null && !request.getDescription()
+							.trim()
+							.isEmpty() ? request.getDescription() : "bulk credit")
+					.balanceAfter(balanceAfter)
+					.build());
+			lineIndexes.add(index);
+		}
+
+		if (!lines.isEmpty()) {
+			accountDao.applyBalanceDeltas(deltas);
+			int[] transactionIds = transactionDao.createTransactionsReturningIds(lines);
+			for (int i = 0; i < lines.size(); i++) {
+				int index = lineIndexes.get(i);
+				results[index] = BulkItemResult.builder()
+						.item(firstItem + index)
+						.status(BulkItemResult.OK)
+						.accountId(lines.get(i)
+								.getAccountId())
+						.transactionId(transactionIds[i])
+						.balanceAfter(lines.get(i)
+								.getBalanceAfter())
+						.build();
+			}
+		}
+	}
+
+	private String validate(BulkAccountRequest request) {
+		if (isBlank(request.getEmail())) {
+			return "email is required";
+		}
+		if (isBlank(request.getFirstName()) || isBlank(request.getLastName())) {
+			return "first and last name are required";
+		}
+		if (request.getInitialDeposit() == null || request.getInitialDeposit()
+				.signum() < 0) {
+			return "initial deposit cannot be negative";
+		}
+		if (request.getInitialDeposit()
+				.scale() > 2) {
+			return "amount has more than 2 decimal places";
+		}
+		if (request.getAccountType() == null || !ACCOUNT_TYPES.contains(request.getAccountType()
+				.toUpperCase(Locale.ROOT))) {
+			return "account type must be one of " + ACCOUNT_TYPES;
+		}
+		return null;
+	}
+
+	private String validate(BulkPostingRequest request) {
+		if (request.getAccountId() == null) {
+			return "accountId is required";
+		}
+		if (request.getAmount() == null || request.getAmount()
+				.signum() <= 0) {
+			return "amount must be positive";
+		}
+		if (request.getAmount()
+				.scale() > 2) {
+			return "amount has more than 2 decimal places";
+		}
+		return null;
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.trim()
+				.isEmpty();
+	}
+
+	private static String emailKey(String email) {
+		return email.trim()
+				.toLowerCase(Locale.ROOT);
+	}
+
+	private static BulkItemResult error(int item, String message) {
+		return BulkItemResult.builder()
+				.item(item)
+				.status(BulkItemResult.ERROR)
+				.error(message)
+				.build();
+	}
+
+	// database errors are logged, not echoed back to the caller
+	private static BulkItemResult failed(int item, RuntimeException e) {
+		LOGGER.warn("bulk item failed: item={}, error={}", item, e.getMessage());
+		return error(item, "item could not be processed");
+	}
+
+	// run work in one database transaction, retrying on deadlocks and lock wait timeouts
+	private <T> T inTransaction(Supplier<T> work) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return transactionTemplate.execute(status -> work.get());
+			} catch (PessimisticLockingFailureException e) {
+				if (attempt >= MAX_LOCK_RETRIES) {
+					throw e;
+				}
+				LOGGER.warn("lock conflict, retrying bulk chunk: attempt={}, error={}", attempt, e.getMessage());
+				try {
+					Thread.sleep(ThreadLocalRandom.current()
+							.nextLong(5, 20L * attempt));
+				} catch (InterruptedException ie) {
+					Thread.currentThread()
+							.interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	private interface ChunkWork {
+
+		void run(List<Integer> indexes);
+	}
+}
@@ -0,0 +1,199 @@
+package com.banking.service;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.TransactionSystemException;
+
+import com.banking.dao.IdempotencyKeyDao;
+import com.banking.model.IdempotencyRecord;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+
+// Runs a request at most once per client-supplied key and hands the stored
+// result back for repeats. Keys sit in a size and TTL bounded cache in front
+// of the idempotency_key table: a repeat on the node that ran the request is
+// answered from memory, one on another node from the table. The key is
+// claimed in the table before the request runs, so copies racing on
+// different nodes cannot both run. A request that failed releases its key;
+// one whose commit failed (it may have gone through) or whose result cannot
+// be stored keeps it, so a retry can never post twice.
+public class IdempotencyStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyStore.class);
+
+	private static final int MAX_KEY_LENGTH = 64;
+	// stored instead of a response when the request ran, or may have run, but
+	// its result cannot be handed back
+	private static final String NOT_REPLAYABLE = "";
+
+	private IdempotencyKeyDao idempotencyKeyDao;
+	private long ttlSeconds = 86_400;
+	private long maximumSize = 100_000;
+
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	private final LongAdder replays = new LongAdder();
+
+	private Cache<String, Entry> entries;
+
+	public void setIdempotencyKeyDao(IdempotencyKeyDao idempotencyKeyDao) {
+		this.idempotencyKeyDao = idempotencyKeyDao;
+	}
+
+	public void setTtlSeconds(long ttlSeconds) {
+		this.ttlSeconds = ttlSeconds;
+	}
+
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	public void init() {
+		// the system scheduler expires entries in the background, not only on access
+		entries = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.scheduler(Scheduler.systemScheduler())
+				.build();
+	}
+
+	// run operation once for scope and key. a repeat with the same fingerprint
+	// (what the request asked for) gets a copy of the first result back.
+	public <T> T execute(String scope, String key, String fingerprint, Class<T> resultType, Supplier<T> operation) {
+		if (key.length() > MAX_KEY_LENGTH) {
+			throw new IllegalArgumentException("idempotency key is longer than " + MAX_KEY_LENGTH + " characters");
+		}
+		String scopedKey = scope + ":" + key;
+
+		// claim the key on this node first, so local repeats never reach the database
+		Entry claimed = new Entry(fingerprint, null);
+		Entry existing = entries.asMap()
+				.putIfAbsent(scopedKey, claimed);
+		if (existing != null) {
+			return replay(scopedKey, existing, fingerprint, resultType);
+		}
+
+		try {
+			idempotencyKeyDao.claim(scopedKey, fingerprint,
+					new Timestamp(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds)));
+		} catch (DuplicateKeyException e) {
+			// claimed on another node, or before this node restarted
+			IdempotencyRecord record = idempotencyKeyDao.getRecord(scopedKey);
+			Entry stored = record == null ? claimed : new Entry(record.getFingerprint(), record.getResponse());
+			if (stored.response != null) {
+				entries.put(scopedKey, stored);
+			} else {
+				entries.asMap()
+						.remove(scopedKey, claimed);
+			}
+			return replay(scopedKey, stored, fingerprint, resultType);
+		} catch (RuntimeException e) {
+			entries.asMap()
+					.remove(scopedKey, claimed);
+			throw e;
+		}
+
+		T result;
+		try {
+			result = operation.get();
+		} catch (TransactionSystemException e) {
+			// the commit itself failed, so the posting may have gone through
+			LOGGER.error("idempotent request outcome unknown, key kept: key={}, error={}", scopedKey, e.getMessage());
+			store(scopedKey, fingerprint, NOT_REPLAYABLE);
+			throw e;
+		} catch (RuntimeException e) {
+			entries.asMap()
+					.remove(scopedKey, claimed);
+			idempotencyKeyDao.release(scopedKey);
+			throw e;
+		}
+
+		String response;
+		try {
+			response = toJson(result);
+		} catch (RuntimeException e) {
+			// the request went through: keep the key even though its result cannot be replayed
+			LOGGER.error("idempotent response cannot be stored: key={}, error={}", scopedKey, e.getMessage());
+			response = NOT_REPLAYABLE;
+		}
+		store(scopedKey, fingerprint, response);
+		return result;
+	}
+
+	// drop expired keys from memory and from the table
+	public void purgeExpired() {
+		entries.cleanUp();
+		int removed = idempotencyKeyDao.deleteExpired(new Timestamp(System.currentTimeMillis()));
+		if (removed > 0) {
+			LOGGER.info("expired idempotency keys purged: count={}", removed);
+		}
+	}
+
+	public long getReplayCount() {
+		return replays.sum();
+	}
+
+	public long getSize() {
+		return entries.estimatedSize();
+	}
+
+	private void store(String scopedKey, String fingerprint, String response) {
+		entries.put(scopedKey, new Entry(fingerprint, response));
+		try {
+			idempotencyKeyDao.complete(scopedKey, response);
+		} catch (RuntimeException e) {
+			// the request itself succeeded; other nodes will see the key as in progress until it expires
+			LOGGER.warn("could not store idempotent response: key={}, error={}", scopedKey, e.getMessage());
+		}
+	}
+
+	private <T> T replay(String scopedKey, Entry entry, String fingerprint, Class<T> resultType) {
+		if (!entry.fingerprint.equals(fingerprint)) {
+			throw new IllegalArgumentException("idempotency key was already used for a different request");
+		}
+		if (entry.response == null) {
+			throw new IllegalArgumentException("this request is already being processed");
+		}
+		if (entry.response.equals(NOT_REPLAYABLE)) {
+			throw new IllegalArgumentException(
+					"this request was already submitted; check the account history before sending it again");
+		}
+		replays.increment();
+		LOGGER.info("idempotent replay: key={}", scopedKey);
+		try {
+			return objectMapper.readValue(entry.response, resultType);
+		} catch (IOException e) {
+			throw new IllegalStateException("stored response cannot be read: key=" + scopedKey, e);
+		}
+	}
+
+	private String toJson(Object result) {
+		try {
+			return objectMapper.writeValueAsString(result);
+		} catch (IOException e) {
+			throw new IllegalStateException("response cannot be stored", e);
+		}
+	}
+
+	// response is null while the request runs and NOT_REPLAYABLE if it cannot be replayed
+	private static final class Entry {
+
+		private final String fingerprint;
+		private final String response;
+
+		private Entry(String fingerprint, String response) {
+			this.fingerprint = fingerprint;
+			this.response = response;
+		}
+	}
+}
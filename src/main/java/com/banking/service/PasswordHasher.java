@@ -0,0 +1,209 @@
+package com.banking.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// PBKDF2 password hashing on a dedicated, bounded thread pool so a login storm
+// queues here instead of tying up the servlet threads that serve postings.
+// The queue is short on purpose: when it is full a check fails at once with
+// SaturatedException, which the controller answers with 503, instead of
+// holding a request thread while it waits behind the storm.
+// Stored format: pbkdf2$<iterations>$<base64 salt>$<base64 hash>.
+// Hashes without the prefix are legacy unsalted SHA-256 values.
+public class PasswordHasher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PasswordHasher.class);
+
+	private static final String PREFIX = "pbkdf2";
+	private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+	private static final String LEGACY_ALGORITHM = "SHA-256";
+	private static final int SALT_BYTES = 16;
+	private static final int HASH_BITS = 256;
+
+	private final SecureRandom random = new SecureRandom();
+
+	private int iterations = 210_000;
+	private int threads = Runtime.getRuntime()
+			.availableProcessors();
+	private int queueCapacity = 8;
+	private long timeoutMillis = 1_000;
+
+	private ThreadPoolExecutor executor;
+	private final AtomicLong rejected = new AtomicLong();
+
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public void start() {
+		AtomicInteger threadNumber = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		LOGGER.info("password hasher started: iterations={}, threads={}, queueCapacity={}",
+				iterations,
+				threads,
+				queueCapacity);
+	}
+
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	// hash a new password with the configured cost
+	public String hash(String password) {
+		return runOnPool(() -> {
+			byte[] salt = new byte[SALT_BYTES];
+			random.nextBytes(salt);
+			byte[] hash = pbkdf2(password, salt, iterations);
+			return PREFIX + "$" + iterations + "$" + Base64.getEncoder()
+					.encodeToString(salt) + "$"
+					+ Base64.getEncoder()
+							.encodeToString(hash);
+		});
+	}
+
+	// check a password against a stored hash in constant time
+	public boolean verify(String password, String storedHash) {
+		return runOnPool(() -> MessageDigest.isEqual(computeFor(password, storedHash), decodeHash(storedHash)));
+	}
+
+	// true for legacy SHA-256 hashes and PBKDF2 hashes below the configured cost
+	public boolean needsRehash(String storedHash) {
+		if (!storedHash.startsWith(PREFIX + "$")) {
+			return true;
+		}
+		return Integer.parseInt(storedHash.split("\\$")[1]) < iterations;
+	}
+
+	public int getQueueDepth() {
+		return executor.getQueue()
+				.size();
+	}
+
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	public long getCompletedCount() {
+		return executor.getCompletedTaskCount();
+	}
+
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	private byte[] computeFor(String password, String storedHash) {
+		if (!storedHash.startsWith(PREFIX + "$")) {
+			return legacyHash(password);
+		}
+		String[] parts = storedHash.split("\\$");
+		byte[] salt = Base64.getDecoder()
+				.decode(parts[2]);
+		return pbkdf2(password, salt, Integer.parseInt(parts[1]));
+	}
+
+	private byte[] decodeHash(String storedHash) {
+		if (!storedHash.startsWith(PREFIX + "$")) {
+			return Base64.getDecoder()
+					.decode(storedHash);
+		}
+		return Base64.getDecoder()
+				.decode(storedHash.split("\\$")[3]);
+	}
+
+	private byte[] pbkdf2(String password, byte[] salt, int rounds) {
+		PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, HASH_BITS);
+		try {
+			return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM)
+					.generateSecret(spec)
+					.getEncoded();
+		} catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+			LOGGER.error("Error hashing password ", e);
+			throw new RuntimeException("Password hashing failed");
+		} finally {
+			spec.clearPassword();
+		}
+	}
+
+	private byte[] legacyHash(String password) {
+		try {
+			return MessageDigest.getInstance(LEGACY_ALGORITHM)
+					.digest(password.getBytes());
+		} catch (NoSuchAlgorithmException e) {
+			LOGGER.error("Error hashing password ", e);
+			throw new RuntimeException("Password hashing failed");
+		}
+	}
+
+	private <T> T runOnPool(Callable<T> task) {
+		Future<T> future;
+		try {
+			future = executor.submit(task);
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			LOGGER.warn("password hasher saturated: queueDepth={}", getQueueDepth());
+			throw new SaturatedException("too many login attempts in progress, please try again");
+		}
+
+		try {
+			return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new SaturatedException("password check timed out, please try again");
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+			throw new IllegalStateException("password check interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException("Password hashing failed", e.getCause());
+		}
+	}
+
+	// the hasher is overloaded; the caller should answer 503 and ask to retry
+	public static class SaturatedException extends IllegalStateException {
+
+		private static final long serialVersionUID = 1L;
+
+		public SaturatedException(String message) {
+			super(message);
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package com.banking.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.banking.dao.CustomerDao;
+import com.banking.dao.UserDao;
+import com.banking.model.Customer;
+
+// In-memory Bloom filters over user names, user emails and customer emails.
+// A negative answer means the value is definitely not in the database, so the
+// existence queries can be skipped; a positive answer still goes to MySQL.
+// Filters are seeded by streaming the tables at startup and kept current by the
+// services that insert users and customers. An insert made inside a transaction
+// reaches the filters only once it commits, so a rollback adds nothing and a
+// rebuild scanning the tables meanwhile still gets the value.
+public class RegistrationFilter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RegistrationFilter.class);
+
+	private UserDao userDao;
+	private CustomerDao customerDao;
+
+	private long expectedInsertions = 1_000_000;
+	private double falsePositiveRate = 0.01;
+
+	// the live filters and, during a rebuild, the ones being loaded, published
+	// together so an insert never sees one without the other
+	private volatile State state = new State(null, null);
+	// held by inserts and by the swaps, so no insert lands between reading the
+	// state and the rebuild replacing it
+	private final Object swapLock = new Object();
+
+	private final AtomicLong definitelyAbsent = new AtomicLong();
+	private final AtomicLong confirmedPresent = new AtomicLong();
+	private final AtomicLong falsePositives = new AtomicLong();
+
+	public void setUserDao(UserDao userDao) {
+		this.userDao = userDao;
+	}
+
+	public void setCustomerDao(CustomerDao customerDao) {
+		this.customerDao = customerDao;
+	}
+
+	public void setExpectedInsertions(long expectedInsertions) {
+		this.expectedInsertions = expectedInsertions;
+	}
+
+	public void setFalsePositiveRate(double falsePositiveRate) {
+		this.falsePositiveRate = falsePositiveRate;
+	}
+
+	public void init() {
+		rebuild();
+	}
+
+	// reload all filters from the database and swap them in
+	public synchronized void rebuild() {
+		long start = System.currentTimeMillis();
+		Filters fresh = new Filters(expectedInsertions, falsePositiveRate);
+		synchronized (swapLock) {
+			state = new State(state.current, fresh);
+		}
+		boolean loaded = false;
+		try {
+			userDao.forEachUsernameAndEmail((username, email) -> {
+				fresh.usernames.put(normalize(username));
+				fresh.userEmails.put(normalize(email));
+			});
+			customerDao.forEachEmail(email -> fresh.customerEmails.put(normalize(email)));
+			loaded = true;
+		} finally {
+			synchronized (swapLock) {
+				state = new State(loaded ? fresh : state.current, null);
+			}
+		}
+		LOGGER.info("registration filter rebuilt: timeMs={}", System.currentTimeMillis() - start);
+	}
+
+	// username check that only queries the database on a filter hit
+	public boolean usernameExists(String username) {
+		if (!mightContainUsername(username)) {
+			definitelyAbsent.incrementAndGet();
+			return false;
+		}
+		return recordDatabaseResult(userDao.usernameExists(username));
+	}
+
+	public boolean userEmailExists(String email) {
+		if (!mightContainUserEmail(email)) {
+			definitelyAbsent.incrementAndGet();
+			return false;
+		}
+		return recordDatabaseResult(userDao.emailExists(email));
+	}
+
+	public Customer getCustomerByEmail(String email) {
+		if (!mightContainCustomerEmail(email)) {
+			definitelyAbsent.incrementAndGet();
+			return null;
+		}
+		Customer customer = customerDao.getCustomerByEmail(email);
+		recordDatabaseResult(customer != null);
+		return customer;
+	}
+
+	public boolean mightContainUsername(String username) {
+		Filters filters = state.current;
+		return filters == null || filters.usernames.mightContain(normalize(username));
+	}
+
+	public boolean mightContainUserEmail(String email) {
+		Filters filters = state.current;
+		return filters == null || filters.userEmails.mightContain(normalize(email));
+	}
+
+	public boolean mightContainCustomerEmail(String email) {
+		Filters filters = state.current;
+		return filters == null || filters.customerEmails.mightContain(normalize(email));
+	}
+
+	public void addUser(String username, String email) {
+		String normalizedUsername = normalize(username);
+		String normalizedEmail = normalize(email);
+		afterCommit(() -> {
+			synchronized (swapLock) {
+				for (Filters filters : state.targets()) {
+					filters.usernames.put(normalizedUsername);
+					filters.userEmails.put(normalizedEmail);
+				}
+			}
+		});
+	}
+
+	public void addCustomerEmail(String email) {
+		String normalizedEmail = normalize(email);
+		afterCommit(() -> {
+			synchronized (swapLock) {
+				for (Filters filters : state.targets()) {
+					filters.customerEmails.put(normalizedEmail);
+				}
+			}
+		});
+	}
+
+	// now, or when the caller's transaction commits; dropped on rollback
+	private static void afterCommit(Runnable add) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			add.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCommit() {
+				add.run();
+			}
+		});
+	}
+
+	private boolean recordDatabaseResult(boolean exists) {
+		if (exists) {
+			confirmedPresent.incrementAndGet();
+		} else {
+			falsePositives.incrementAndGet();
+		}
+		return exists;
+	}
+
+	public long getDefinitelyAbsentCount() {
+		return definitelyAbsent.get();
+	}
+
+	public long getConfirmedPresentCount() {
+		return confirmedPresent.get();
+	}
+
+	public long getFalsePositiveCount() {
+		return falsePositives.get();
+	}
+
+	// share of lookups for values not in the database that still went to the database
+	public double getObservedFalsePositiveRate() {
+		long negatives = definitelyAbsent.get() + falsePositives.get();
+		return negatives == 0 ? 0 : (double) falsePositives.get() / negatives;
+	}
+
+	// the worst of the three filters: lookups go to all of them
+	public double getExpectedFalsePositiveRate() {
+		Filters filters = state.current;
+		if (filters == null) {
+			return 1;
+		}
+		return Math.max(filters.usernames.expectedFalsePositiveRate(),
+				Math.max(filters.userEmails.expectedFalsePositiveRate(),
+						filters.customerEmails.expectedFalsePositiveRate()));
+	}
+
+	// MySQL's default collation ignores case and accents, so the filter must too
+	private static String normalize(String value) {
+		if (value == null) {
+			return "";
+		}
+		String stripped = Normalizer.normalize(value, Normalizer.Form.NFD)
+				.replaceAll("\\p{M}", "");
+		return stripped.toLowerCase(Locale.ROOT);
+	}
+
+	private static final class State {
+
+		private final Filters current;
+		// filters being rebuilt; inserts made during a rebuild go to both sets
+		private final Filters building;
+
+		private State(Filters current, Filters building) {
+			this.current = current;
+			this.building = building;
+		}
+
+		private List<Filters> targets() {
+			List<Filters> targets = new ArrayList<>(2);
+			if (current != null) {
+				targets.add(current);
+			}
+			if (building != null) {
+				targets.add(building);
+			}
+			return targets;
+		}
+	}
+
+	private static class Filters {
+
+		private final BloomFilter usernames;
+		private final BloomFilter userEmails;
+		private final BloomFilter customerEmails;
+
+		private Filters(long expectedInsertions, double falsePositiveRate) {
+			usernames = new BloomFilter(expectedInsertions, falsePositiveRate);
+			userEmails = new BloomFilter(expectedInsertions, falsePositiveRate);
+			customerEmails = new BloomFilter(expectedInsertions, falsePositiveRate);
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package com.banking.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+// Gzips rendered pages and JSON for clients that accept it. The first
+// minSize bytes are held back: a response that ends before that, or whose
+// content type is not text or JSON, goes out as it is. Once compressing,
+// flush() still reaches the client (sync flush), so streamed responses stay
+// streamed. Responses that already carry a Content-Encoding are left alone.
+// An async handler's page is written during the async dispatch, so that
+// dispatch is filtered too.
+public class CompressionFilter extends OncePerRequestFilter {
+
+	private int minSize = 1024;
+
+	public void setMinSize(int minSize) {
+		this.minSize = minSize;
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		// the async dispatch is handed the response the request went async with: ours
+		CompressingResponse compressing = WebUtils.getNativeResponse(response, CompressingResponse.class);
+		if (compressing == null) {
+			String acceptEncoding = request.getHeader("Accept-Encoding");
+			if (acceptEncoding == null || !acceptEncoding.contains("gzip") || "HEAD".equals(request.getMethod())) {
+				chain.doFilter(request, response);
+				return;
+			}
+			response.addHeader("Vary", "Accept-Encoding");
+			compressing = new CompressingResponse(response);
+			response = compressing;
+		}
+
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			// an async handler writes its page later, on the async dispatch
+			if (!isAsyncStarted(request)) {
+				compressing.finish();
+			}
+		}
+	}
+
+	private static boolean compressible(String contentType) {
+		return contentType != null && (contentType.startsWith("text/") || contentType.startsWith("application/json")
+				|| contentType.startsWith("application/x-ndjson"));
+	}
+
+	private final class CompressingResponse extends HttpServletResponseWrapper {
+
+		private final HttpServletResponse response;
+		private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+		// null until decided: the gzip stream or the response's own stream
+		private OutputStream target;
+		private long contentLength = -1;
+		private ServletOutputStream stream;
+		private PrintWriter writer;
+
+		private CompressingResponse(HttpServletResponse response) {
+			super(response);
+			this.response = response;
+		}
+
+		// the length is only known to be right when the body goes out uncompressed
+		@Override
+		public void setContentLength(int length) {
+			setContentLengthLong(length);
+		}
+
+		@Override
+		public void setContentLengthLong(long length) {
+			if (target == null) {
+				contentLength = length;
+			} else if (!(target instanceof GzipStream)) {
+				response.setContentLengthLong(length);
+			}
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (writer != null) {
+				throw new IllegalStateException("getWriter() has already been called");
+			}
+			if (stream == null) {
+				stream = new ServletOutputStream() {
+
+					@Override
+					public void write(int b) throws IOException {
+						write(new byte[] { (byte) b }, 0, 1);
+					}
+
+					@Override
+					public void write(byte[] b, int off, int len) throws IOException {
+						CompressingResponse.this.write(b, off, len);
+					}
+
+					@Override
+					public void flush() throws IOException {
+						CompressingResponse.this.flush();
+					}
+
+					@Override
+					public boolean isReady() {
+						return true;
+					}
+
+					@Override
+					public void setWriteListener(WriteListener writeListener) {
+						throw new UnsupportedOperationException("non-blocking writes are not supported");
+					}
+				};
+			}
+			return stream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				if (stream != null) {
+					throw new IllegalStateException("getOutputStream() has already been called");
+				}
+				String encoding = getCharacterEncoding();
+				ServletOutputStream out = getOutputStream();
+				stream = null;
+				writer = new PrintWriter(new OutputStreamWriter(out,
+						encoding != null ? encoding : StandardCharsets.ISO_8859_1.name()));
+			}
+			return writer;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			}
+			flush();
+			response.flushBuffer();
+		}
+
+		@Override
+		public void resetBuffer() {
+			pending.reset();
+			super.resetBuffer();
+		}
+
+		@Override
+		public void reset() {
+			pending.reset();
+			contentLength = -1;
+			super.reset();
+		}
+
+		private void write(byte[] b, int off, int len) throws IOException {
+			if (target == null) {
+				pending.write(b, off, len);
+				if (pending.size() < minSize) {
+					return;
+				}
+				decide(true);
+				return;
+			}
+			target.write(b, off, len);
+		}
+
+		// a flush before minSize bytes sends them uncompressed, so a short page or a
+		// slow stream is not held back
+		private void flush() throws IOException {
+			if (target == null && pending.size() > 0) {
+				decide(false);
+			}
+			if (target != null) {
+				target.flush();
+			}
+		}
+
+		// compress only a large enough, compressible, successful body not encoded already
+		private void decide(boolean large) throws IOException {
+			OutputStream out = response.getOutputStream();
+			int status = response.getStatus();
+			if (large && compressible(response.getContentType()) && response.getHeader("Content-Encoding") == null
+					&& status != HttpServletResponse.SC_NO_CONTENT
+					&& status != HttpServletResponse.SC_NOT_MODIFIED) {
+				response.setHeader("Content-Encoding", "gzip");
+				target = new GzipStream(out);
+			} else {
+				if (contentLength >= 0) {
+					response.setContentLengthLong(contentLength);
+				}
+				target = out;
+			}
+			pending.writeTo(target);
+			pending.reset();
+		}
+
+		private void finish() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			}
+			if (target == null) {
+				if (pending.size() == 0) {
+					return;
+				}
+				decide(false);
+			}
+			if (target instanceof GzipStream) {
+				((GzipStream) target).end();
+			}
+		}
+	}
+
+	// finish() leaves the deflater's native memory to the cleaner and close()
+	// would close the response too, so end() writes the trailer and frees it
+	private static final class GzipStream extends GZIPOutputStream {
+
+		private GzipStream(OutputStream out) throws IOException {
+			super(out, 8192, true);
+		}
+
+		private void end() throws IOException {
+			try {
+				finish();
+			} finally {
+				def.end();
+			}
+		}
+	}
+}
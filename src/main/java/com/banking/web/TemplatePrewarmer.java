@@ -0,0 +1,88 @@
+package com.banking.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.servlet.ServletContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.ServletContextAware;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+
+// Parses every template under the views directory at startup, so with the
+// template cache on no user request pays for reading and parsing a page.
+// Templates that fail to parse are logged and left to fail on first use.
+public class TemplatePrewarmer implements ServletContextAware {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TemplatePrewarmer.class);
+
+	private SpringTemplateEngine templateEngine;
+	private String prefix = "/WEB-INF/views/";
+	private String suffix = ".html";
+	private ServletContext servletContext;
+
+	public void setTemplateEngine(SpringTemplateEngine templateEngine) {
+		this.templateEngine = templateEngine;
+	}
+
+	public void setPrefix(String prefix) {
+		this.prefix = prefix;
+	}
+
+	public void setSuffix(String suffix) {
+		this.suffix = suffix;
+	}
+
+	@Override
+	public void setServletContext(ServletContext servletContext) {
+		this.servletContext = servletContext;
+	}
+
+	public void prewarm() {
+		long start = System.nanoTime();
+		List<String> templates = new ArrayList<>();
+		collect(prefix, templates);
+
+		int parsed = 0;
+		for (String template : templates) {
+			if (prewarm(templateEngine, template)) {
+				parsed++;
+			}
+		}
+		LOGGER.info("templates prewarmed: parsed={}, failed={}, elapsedMs={}", parsed, templates.size() - parsed,
+				(System.nanoTime() - start) / 1_000_000);
+	}
+
+	// parse one template into the engine's cache without rendering it
+	public static boolean prewarm(ITemplateEngine templateEngine, String template) {
+		try {
+			// a throttled processor parses (and caches) the template up front but
+			// renders nothing until asked, which it never is here
+			templateEngine.processThrottled(template, new Context(Locale.getDefault()));
+			return true;
+		} catch (RuntimeException e) {
+			LOGGER.warn("template prewarm failed: template={}, error={}", template, e.getMessage());
+			return false;
+		}
+	}
+
+	// template names (path under prefix, without suffix), subdirectories included
+	private void collect(String path, List<String> templates) {
+		Set<String> entries = servletContext.getResourcePaths(path);
+		if (entries == null) {
+			return;
+		}
+		for (String entry : entries) {
+			if (entry.endsWith("/")) {
+				collect(entry, templates);
+			} else if (entry.endsWith(suffix)) {
+				templates.add(entry.substring(prefix.length(), entry.length() - suffix.length()));
+			}
+		}
+	}
+}